@@ -0,0 +1,90 @@
+package org.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Configuración de los ejecutores y tareas programadas usados para el trabajo en segundo plano
+ * (despacho de la tabla de salida de notificaciones, envío de eventos SSE, verificación de contraseñas, escritura de
+ * exportaciones y reconstrucción del índice de búsqueda). */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+
+    @Bean(name = "notificacionesExecutor")
+    public Executor notificacionesExecutor(@Value("${notificaciones.outbox.trabajadores:4}") int trabajadores) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(trabajadores);
+        executor.setMaxPoolSize(trabajadores);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("notificaciones-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // Hilos que escriben en las conexiones SSE. Cada conexión se drena en un solo hilo a la vez,
+    // así que unos pocos hilos atienden miles de conexiones ociosas. La cola admite como mucho una tarea por
+    // conexión con envíos pendientes; si se llena, execute() lanza TaskRejectedException y se corta la conexión.
+    @Bean(name = "sseExecutor")
+    public Executor sseExecutor(@Value("${notificaciones.stream.hilos:4}") int hilos,
+                                @Value("${notificaciones.stream.cola-envios:10000}") int colaEnvios) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(colaEnvios);
+        executor.setThreadNamePrefix("sse-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Verificación de contraseñas (BCrypt) en el login. Es trabajo de CPU: el pool se limita a los núcleos
+    // y la cola es acotada, de modo que una avalancha de logins no deja sin hilos al resto de endpoints.
+    // Cuando la cola se llena, execute() lanza TaskRejectedException y el login responde 503 de inmediato.
+    @Bean(name = "loginExecutor")
+    public ThreadPoolTaskExecutor loginExecutor(@Value("${seguridad.login.hilos:0}") int hilos,
+                                                @Value("${seguridad.login.capacidad-cola:200}") int capacidadCola) {
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(tamano);
+        executor.setMaxPoolSize(tamano);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("login-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Escritura de las exportaciones (StreamingResponseBody y demás respuestas asíncronas de MVC, ver WebMvcConfig).
+    // Una exportación grande tarda lo que tarde el cliente en descargarla: se escribe aquí y no en un hilo del
+    // servidor, con pocos hilos y cola acotada para que varias descargas lentas no acaparen el resto de peticiones.
+    @Bean(name = "exportacionExecutor")
+    public ThreadPoolTaskExecutor exportacionExecutor(@Value("${exportacion.hilos:2}") int hilos,
+                                                      @Value("${exportacion.capacidad-cola:20}") int capacidadCola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("exportacion-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Reconstrucción del índice de búsqueda de campañas al arrancar. Puede tardar minutos con muchas campañas,
+    // así que no se hace en un hilo del planificador (retrasaría el despachador de notificaciones).
+    @Bean(name = "indiceBusquedaExecutor")
+    public Executor indiceBusquedaExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("indice-busqueda-");
+        executor.initialize();
+        return executor;
+    }
+}
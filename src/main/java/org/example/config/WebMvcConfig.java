@@ -0,0 +1,32 @@
+package org.example.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Peticiones asíncronas de MVC. Al definir ejecutores propios en AsyncConfig, Spring Boot deja de crear el suyo, así
+ * que las respuestas StreamingResponseBody (exportaciones) se escriben en 'exportacionExecutor' con un plazo máximo. */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor exportacionExecutor;
+    private final long timeoutMinutos;
+
+    public WebMvcConfig(@Qualifier("exportacionExecutor") ThreadPoolTaskExecutor exportacionExecutor,
+                        @Value("${exportacion.timeout-minutos:30}") long timeoutMinutos) {
+        this.exportacionExecutor = exportacionExecutor;
+        this.timeoutMinutos = timeoutMinutos;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportacionExecutor);
+        configurer.setDefaultTimeout(Duration.ofMinutes(timeoutMinutos).toMillis());
+    }
+}
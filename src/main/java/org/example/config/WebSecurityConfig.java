@@ -1,8 +1,9 @@
 package org.example.config;
 
+import jakarta.servlet.DispatcherType;
 import org.example.filter.JwtRequestFilter;
-import org.example.model.Usuario;
-import org.example.repository.UsuarioRepository;
+import org.example.service.UsuarioDetallesService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,8 +14,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -31,10 +30,14 @@ import java.util.List;
 @EnableMethodSecurity
 public class WebSecurityConfig {
 
-    private final UsuarioRepository usuarioRepository;
+    private final UsuarioDetallesService usuarioDetallesService;
 
-    public WebSecurityConfig(UsuarioRepository usuarioRepository) {
-        this.usuarioRepository = usuarioRepository;
+    // Coste de BCrypt para los hashes nuevos; los guardados con un coste menor se recalculan al iniciar sesión
+    @Value("${seguridad.bcrypt.coste:10}")
+    private int costeBcrypt;
+
+    public WebSecurityConfig(UsuarioDetallesService usuarioDetallesService) {
+        this.usuarioDetallesService = usuarioDetallesService;
     }
 
     @Bean
@@ -43,6 +46,8 @@ public class WebSecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(authorize -> authorize
+                        // El despacho asíncrono que cierra un stream SSE ya fue autorizado en la petición original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/", "/index.html", "/css/**", "/js/**", "/webjars/**", "/assets/**", "/images/**").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
@@ -53,8 +58,9 @@ public class WebSecurityConfig {
                         .requestMatchers("/api/campanas/**").authenticated()
                         .requestMatchers("/api/notificaciones/usuario/{idUsuario}").authenticated() // Permitir a cualquier autenticado ver sus notificaciones
                         .requestMatchers("/api/notificaciones/{id}/marcar-leida").authenticated()
+                        .requestMatchers("/api/notificaciones/stream", "/api/notificaciones/stream/ticket").authenticated()
                         .requestMatchers("/api/perfil/**").authenticated()
-                        .requestMatchers("/api/auth/change-password").authenticated()
+                        .requestMatchers("/api/usuarios/change-password").authenticated() // Cada usuario cambia la suya
                         .requestMatchers("/api/usuarios/me").authenticated()
 
                         // Rutas que requieren el rol de VOLUNTARIO
@@ -64,6 +70,7 @@ public class WebSecurityConfig {
                         // Rutas que requieren específicamente el rol de ADMIN
                         .requestMatchers("/api/usuarios/**").hasRole("ADMIN")
                         .requestMatchers("/api/reportes/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         .anyRequest().authenticated()
                 )
@@ -82,20 +89,15 @@ public class WebSecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    @Bean
-    public UserDetailsService userDetailsService() {
-        return username -> usuarioRepository.findByNombreUsuario(username)
-                .map(Usuario::toUserDetails)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
+        return new BCryptPasswordEncoder(costeBcrypt);
     }
 
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService());
+        authProvider.setUserDetailsService(usuarioDetallesService);
+        // Si el hash guardado usa un coste menor que el configurado, se vuelve a cifrar la contraseña tras un login correcto
+        authProvider.setUserDetailsPasswordService(usuarioDetallesService);
         authProvider.setPasswordEncoder(passwordEncoder());
         return authProvider;
     }
@@ -3,22 +3,26 @@ package org.example.controller;
 import org.example.dto.LoginRequest; // Importar el DTO para la solicitud de login
 import org.example.dto.LoginResponse; // Importar el DTO para la respuesta de login
 import org.example.dto.RegistroRequest;
-import org.example.model.Usuario; // Importar la entidad Usuario
+import org.example.model.UsuarioAutenticado;
 import org.example.service.AuthService;
-import org.example.repository.UsuarioRepository; // Necesario para cargar el usuario en el login
 import org.example.util.JwtUtil; // Importar la utilidad JWT
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
@@ -26,14 +30,17 @@ public class AuthController {
     private final AuthService authService;
     private final AuthenticationManager authenticationManager; // Inyectar AuthenticationManager
     private final JwtUtil jwtUtil; // Inyectar JwtUtil
-    private final UsuarioRepository usuarioRepository; // Inyectar UsuarioRepository para obtener detalles del usuario
+    private final Executor loginExecutor; // Pool acotado para la verificación de contraseñas
+
+    private static final String SEGUNDOS_REINTENTO_LOGIN = "2";
 
     // Constructor para inyección de dependencias
-    public AuthController(AuthService authService, AuthenticationManager authenticationManager, JwtUtil jwtUtil, UsuarioRepository usuarioRepository) {
+    public AuthController(AuthService authService, AuthenticationManager authenticationManager, JwtUtil jwtUtil,
+                          @Qualifier("loginExecutor") Executor loginExecutor) {
         this.authService = authService;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
-        this.usuarioRepository = usuarioRepository;
+        this.loginExecutor = loginExecutor;
     }
 
     @PostMapping("/register")
@@ -46,27 +53,36 @@ public class AuthController {
         }
     }
 
+    /**
+     * Inicio de sesión con JWT. La verificación de la contraseña (BCrypt) se hace en 'loginExecutor' y no en el hilo
+     * del servidor; si ese pool está saturado se responde 503 en lugar de encolar sin límite.
+     */
     @PostMapping("/login") // Nuevo endpoint para el inicio de sesión con JWT
-    public ResponseEntity<?> createAuthenticationToken(@RequestBody LoginRequest loginRequest) throws Exception {
+    public CompletableFuture<ResponseEntity<?>> createAuthenticationToken(@RequestBody LoginRequest loginRequest) {
+        try {
+            return CompletableFuture.supplyAsync(() -> autenticar(loginRequest), loginExecutor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, SEGUNDOS_REINTENTO_LOGIN)
+                    .body("Demasiados inicios de sesión simultáneos. Inténtalo de nuevo en unos segundos."));
+        }
+    }
+
+    private ResponseEntity<?> autenticar(LoginRequest loginRequest) {
         try {
             // Autenticar al usuario usando AuthenticationManager
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword())
             );
 
-            // Si la autenticación es exitosa, cargar los detalles completos del usuario
-            final UserDetails userDetails = (UserDetails) authentication.getPrincipal(); // Obtener UserDetails del objeto Authentication
+            // Si la autenticación es exitosa, el principal ya trae el Usuario cargado al verificar la contraseña
+            final UsuarioAutenticado principal = (UsuarioAutenticado) authentication.getPrincipal();
 
             // Generar el token JWT
-            final String jwt = jwtUtil.generateToken(userDetails);
-
-            // Obtener la entidad Usuario completa de la base de datos para construir la respuesta
-            // Esto es necesario para obtener todos los campos del DTO LoginResponse
-            Usuario usuario = usuarioRepository.findByNombreUsuario(userDetails.getUsername())
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado después de autenticación."));
+            final String jwt = jwtUtil.generateToken(principal);
 
-            // Devolver el token JWT y los datos del usuario en la respuesta
-            return ResponseEntity.ok(new LoginResponse(jwt, usuario));
+            // Devolver el token JWT y los datos del usuario en la respuesta (sin volver a consultar la base de datos)
+            return ResponseEntity.ok(new LoginResponse(jwt, principal.getUsuario()));
 
         } catch (BadCredentialsException e) {
             // Credenciales inválidas
@@ -1,28 +1,51 @@
 package org.example.controller;
 
+import org.example.dto.CampañaCercanaDTO;
+import org.example.dto.CampañaResumenDTO;
+import org.example.dto.EventoCalendarioDTO;
+import org.example.dto.PaginaCursorDTO;
+import org.example.dto.ResultadoImportacionDTO;
+import org.example.dto.SugerenciaCampañaDTO;
 import org.example.model.Campaña;
-import org.example.model.Usuario;
-import org.example.repository.UsuarioRepository;
+import org.example.model.EstadoCampaña;
+import org.example.model.UsuarioAutenticado;
+import org.example.repository.CampañaRepositoryCustom;
+import org.example.service.BusquedaCampañaService;
 import org.example.service.CampañaService;
+import org.example.service.ExportacionService;
+import org.example.service.InscripcionMasivaService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/campanas")
 public class CampañaController {
 
     private final CampañaService campañaService;
-    private final UsuarioRepository usuarioRepository;
+    private final InscripcionMasivaService inscripcionMasivaService;
+    private final ExportacionService exportacionService;
+    private final BusquedaCampañaService busquedaCampañaService;
 
-    public CampañaController(CampañaService campañaService, UsuarioRepository usuarioRepository) {
+    public CampañaController(CampañaService campañaService, InscripcionMasivaService inscripcionMasivaService,
+                             ExportacionService exportacionService, BusquedaCampañaService busquedaCampañaService) {
         this.campañaService = campañaService;
-        this.usuarioRepository = usuarioRepository;
+        this.inscripcionMasivaService = inscripcionMasivaService;
+        this.exportacionService = exportacionService;
+        this.busquedaCampañaService = busquedaCampañaService;
     }
 
     private Long getAuthenticatedUserId() {
@@ -30,11 +53,8 @@ public class CampañaController {
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new RuntimeException("Usuario no autenticado.");
         }
-        // El principal en este punto es un objeto UserDetails (Spring Security User)
-        String username = authentication.getName(); // Obtener el nombre de usuario
-        Usuario usuario = usuarioRepository.findByNombreUsuario(username)
-                .orElseThrow(() -> new RuntimeException("Usuario autenticado no encontrado en la base de datos."));
-        return usuario.getId();
+        // El filtro JWT deja como principal un UsuarioAutenticado, que ya trae el ID
+        return ((UsuarioAutenticado) authentication.getPrincipal()).getId();
     }
 
     @GetMapping
@@ -44,6 +64,105 @@ public class CampañaController {
         return ResponseEntity.ok(campanas);
     }
 
+    /**
+     * Listado paginado y filtrable de campañas (paginación por clave). Devuelve solo los campos de las tarjetas.
+     * @param estado Filtra por estado.
+     * @param fechaInicio Solo campañas que empiezan en esta fecha o después (yyyy-MM-dd).
+     * @param fechaFin Solo campañas que terminan en esta fecha o antes (yyyy-MM-dd).
+     * @param ubicacion Filtra por ubicación (contiene, sin distinguir mayúsculas).
+     * @param orden "fechaInicio" (por defecto) o "nombre".
+     * @param direccion "asc" (por defecto) o "desc".
+     * @param cursor El 'siguienteCursor' de la página anterior; se omite para la primera página.
+     * @param tamano Número de campañas por página (máximo 100).
+     * @return La página de campañas, 400 Bad Request si el orden, la dirección o el cursor no son válidos.
+     */
+    @GetMapping("/pagina")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<PaginaCursorDTO<CampañaResumenDTO>> getPaginaCampanas(
+            @RequestParam(required = false) EstadoCampaña estado,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(required = false) String ubicacion,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String direccion,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamano) {
+        try {
+            CampañaRepositoryCustom.Filtro filtro = new CampañaRepositoryCustom.Filtro(estado, fechaInicio, fechaFin, ubicacion);
+            return ResponseEntity.ok(campañaService.getPaginaCampanas(filtro, orden, direccion, cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Búsqueda de texto completo en el nombre, la descripción y la ubicación, sin distinguir mayúsculas ni acentos.
+     * @param q Texto a buscar; deben aparecer todas sus palabras.
+     * @param tamano Número máximo de resultados (máximo 100).
+     * @return Las campañas de más a menos relevante, 400 Bad Request si el texto está vacío.
+     */
+    @GetMapping("/buscar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<List<CampañaResumenDTO>> buscarCampanas(@RequestParam(required = false) String q,
+                                                                  @RequestParam(defaultValue = "20") int tamano) throws IOException {
+        try {
+            return ResponseEntity.ok(busquedaCampañaService.buscar(q, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Autocompletado de nombres de campañas: cada palabra de 'q' es el comienzo de una palabra del nombre.
+     * @param tamano Número máximo de sugerencias (máximo 20).
+     */
+    @GetMapping("/sugerencias")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<List<SugerenciaCampañaDTO>> sugerirCampanas(@RequestParam(required = false) String q,
+                                                                      @RequestParam(defaultValue = "10") int tamano) throws IOException {
+        return ResponseEntity.ok(busquedaCampañaService.sugerir(q, tamano));
+    }
+
+    /**
+     * Campañas activas más cercanas a un punto, de la más cercana a la más lejana. Solo aparecen las campañas con
+     * latitud y longitud.
+     * @param radioKm Distancia máxima en km (máximo 200).
+     * @param tamano Número máximo de campañas (máximo 100).
+     * @return Las campañas con su distancia, 400 Bad Request si las coordenadas o el radio no son válidos.
+     */
+    @GetMapping("/cercanas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<List<CampañaCercanaDTO>> getCampanasCercanas(@RequestParam double lat, @RequestParam double lon,
+                                                                       @RequestParam(defaultValue = "25") double radioKm,
+                                                                       @RequestParam(defaultValue = "20") int tamano) throws IOException {
+        try {
+            return ResponseEntity.ok(busquedaCampañaService.cercanas(lat, lon, radioKm, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * Exportación de todas las campañas (solo ADMIN). Se escribe página a página en 'exportacionExecutor', sin
+     * ocupar el hilo de la petición.
+     * @param formato "csv" (por defecto) o "ndjson" (un objeto JSON por línea).
+     * @return 400 Bad Request si el formato no es válido.
+     */
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportarCampanas(@RequestParam(defaultValue = "csv") String formato) {
+        ExportacionService.Formato tipo;
+        try {
+            tipo = ExportacionService.Formato.desde(formato);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(tipo.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"campanas." + tipo.getExtension() + "\"")
+                .body(salida -> exportacionService.exportarCampañas(tipo, salida));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
     public ResponseEntity<Campaña> getCampañaById(@PathVariable Long id) {
@@ -56,8 +175,12 @@ public class CampañaController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Campaña> createCampaña(@RequestBody Campaña campaña) {
         Long adminId = getAuthenticatedUserId();
-        Campaña newCampaña = campañaService.createCampaña(campaña, adminId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(newCampaña);
+        try {
+            Campaña newCampaña = campañaService.createCampaña(campaña, adminId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(newCampaña);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     @PutMapping("/{id}")
@@ -67,6 +190,8 @@ public class CampañaController {
             Long adminId = getAuthenticatedUserId();
             Campaña updatedCampaña = campañaService.updateCampaña(id, campaña, adminId);
             return ResponseEntity.ok(updatedCampaña);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
@@ -84,22 +209,87 @@ public class CampañaController {
         }
     }
 
+    /**
+     * Eventos del calendario: campañas que se solapan con la ventana [from, to] (ambas inclusive, yyyy-MM-dd).
+     * Sin parámetros se devuelve el mes en curso.
+     * @return Los eventos, 400 Bad Request si falta solo uno de los extremos, 'from' es posterior a 'to' o la
+     *         ventana supera un año.
+     */
     @GetMapping("/eventos")
     @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
-    public ResponseEntity<List<Campaña>> getCampanaEventos() {
-        List<Campaña> eventos = campañaService.getAllCampanas();
-        return ResponseEntity.ok(eventos);
+    public ResponseEntity<List<EventoCalendarioDTO>> getCampanaEventos(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        if (desde == null && hasta == null) {
+            desde = LocalDate.now().withDayOfMonth(1);
+            hasta = desde.plusMonths(1).minusDays(1);
+        } else if (desde == null || hasta == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        try {
+            return ResponseEntity.ok(campañaService.getEventosCalendario(desde, hasta));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     // NUEVOS ENDPOINTS PARA INSCRIPCIONES
 
+    /**
+     * Importación masiva de inscripciones (solo ADMIN). El cuerpo es un CSV con un nombre de usuario o email de
+     * voluntario por línea; se procesa a medida que llega, por lotes.
+     * @return Resumen de la importación, 404 Not Found si la campaña no existe, 400 Bad Request si no se puede leer el cuerpo.
+     */
+    @PostMapping("/{idCampaña}/inscripciones/importar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ResultadoImportacionDTO> importarInscripciones(@PathVariable Long idCampaña, InputStream csv) {
+        try {
+            return ResponseEntity.ok(inscripcionMasivaService.importar(idCampaña, csv));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * Exportación de los inscritos de una campaña en CSV (solo ADMIN). Se escribe página a página en
+     * 'exportacionExecutor', sin cargar la lista completa ni ocupar el hilo de la petición.
+     */
+    @GetMapping("/{idCampaña}/inscripciones/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportarInscripciones(@PathVariable Long idCampaña) {
+        if (campañaService.getCampañaById(idCampaña).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"inscritos-campana-" + idCampaña + ".csv\"")
+                .body(salida -> inscripcionMasivaService.exportar(idCampaña, salida));
+    }
+
+    /**
+     * Estado de inscripción del usuario autenticado en varias campañas (p. ej. las de una página del listado).
+     * @param ids IDs de las campañas (máximo 100).
+     * @return Mapa ID de campaña -> inscrito, 400 Bad Request si se piden más de 100 campañas.
+     */
+    @GetMapping("/inscripciones")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<Map<Long, Boolean>> getEstadoInscripciones(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(campañaService.getEstadoInscripciones(getAuthenticatedUserId(), ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
     /**
      * Endpoint para inscribir un voluntario a una campaña.
      * Requiere que el usuario esté autenticado y tenga el rol 'VOLUNTARIO'.
      * La validación de que el idVoluntario coincida con el usuario autenticado se hace dentro del método.
      * @param idCampaña ID de la campaña.
      * @param idVoluntario ID del voluntario.
-     * @return ResponseEntity con estado 200 OK si la inscripción es exitosa, 400 Bad Request si ya está inscrito, 403 Forbidden si el ID no coincide, 404 Not Found si no existe campaña/voluntario.
+     * @return ResponseEntity con estado 200 OK si la inscripción es exitosa, 400 Bad Request si ya está inscrito, 403 Forbidden si el ID no coincide, 404 Not Found si no existe campaña/voluntario, 409 Conflict si no quedan plazas.
      */
     @PostMapping("/{idCampaña}/inscribir/{idVoluntario}")
     @PreAuthorize("hasRole('VOLUNTARIO')") // Solo verifica el rol. La coincidencia de ID se valida en el método.
@@ -117,6 +307,8 @@ public class CampañaController {
             } else {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El voluntario ya está inscrito en esta campaña.");
             }
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
@@ -154,7 +346,8 @@ public class CampañaController {
      * Endpoint para verificar si un voluntario está inscrito en una campaña.
      * @param idCampaña ID de la campaña.
      * @param idVoluntario ID del voluntario.
-     * @return ResponseEntity con true/false si está inscrito, 403 Forbidden si el ID no coincide (para voluntario), 404 Not Found si no existe campaña/voluntario.
+     * @return ResponseEntity con true/false si está inscrito (false también si no existe la campaña o el voluntario),
+     *         403 Forbidden si el ID no coincide (para voluntario).
      */
     @GetMapping("/{idCampaña}/inscrito/{idVoluntario}")
     @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')") // Admin puede verificar. Voluntario verifica su propia inscripción.
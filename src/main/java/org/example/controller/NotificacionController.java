@@ -1,44 +1,60 @@
 package org.example.controller;
 
+import org.example.dto.PaginaCursorDTO;
 import org.example.model.Notificacion;
-import org.example.model.Usuario;
-import org.example.repository.UsuarioRepository;
+import org.example.model.UsuarioAutenticado;
 import org.example.service.NotificacionService;
+import org.example.service.NotificacionStreamService;
+import org.example.service.TicketStreamService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notificaciones")
 public class NotificacionController {
 
     private final NotificacionService notificacionService;
-    private final UsuarioRepository usuarioRepository;
+    private final NotificacionStreamService notificacionStreamService;
+    private final TicketStreamService ticketStreamService;
 
-    public NotificacionController(NotificacionService notificacionService, UsuarioRepository usuarioRepository) {
+    public NotificacionController(NotificacionService notificacionService, NotificacionStreamService notificacionStreamService,
+                                  TicketStreamService ticketStreamService) {
         this.notificacionService = notificacionService;
-        this.usuarioRepository = usuarioRepository;
+        this.notificacionStreamService = notificacionStreamService;
+        this.ticketStreamService = ticketStreamService;
     }
 
     /**
      * Métod auxiliar para obtener el ID del usuario autenticado del contexto de seguridad.
      * @return El ID del usuario autenticado.
-     * @throws RuntimeException si el usuario no está autenticado o no se encuentra en la base de datos.
+     * @throws RuntimeException si el usuario no está autenticado o no tiene el principal esperado.
      */
     private Long getAuthenticatedUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new RuntimeException("Usuario no autenticado.");
         }
-        String username = authentication.getName();
-        Usuario usuario = usuarioRepository.findByNombreUsuario(username)
-                .orElseThrow(() -> new RuntimeException("Usuario autenticado no encontrado en la base de datos."));
-        return usuario.getId();
+        // El filtro JWT deja como principal un UsuarioAutenticado, que ya trae el ID
+        return ((UsuarioAutenticado) authentication.getPrincipal()).getId();
+    }
+
+    /**
+     * Un VOLUNTARIO solo puede consultar sus propias notificaciones; un ADMIN puede consultar las de cualquiera.
+     */
+    private boolean puedeVerNotificacionesDe(Long idUsuario) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean isVoluntario = authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_VOLUNTARIO"));
+        return !isVoluntario || getAuthenticatedUserId().equals(idUsuario);
     }
 
     /**
@@ -51,16 +67,8 @@ public class NotificacionController {
     @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')") // Simplificado: la lógica de comparación de ID se maneja en el cuerpo
     public ResponseEntity<List<Notificacion>> getNotificacionesByUsuarioId(@PathVariable Long idUsuario) {
         try {
-            // Si el usuario es VOLUNTARIO, asegurar que solo pide sus propias notificaciones
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            boolean isVoluntario = authentication.getAuthorities().stream()
-                    .anyMatch(a -> a.getAuthority().equals("ROLE_VOLUNTARIO"));
-
-            if (isVoluntario) {
-                Long authenticatedUserId = getAuthenticatedUserId();
-                if (!authenticatedUserId.equals(idUsuario)) {
-                    return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Un voluntario no puede ver notificaciones de otro
-                }
+            if (!puedeVerNotificacionesDe(idUsuario)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build(); // Un voluntario no puede ver notificaciones de otro
             }
             List<Notificacion> notificaciones = notificacionService.getNotificacionesByUsuarioId(idUsuario);
             return ResponseEntity.ok(notificaciones);
@@ -70,6 +78,78 @@ public class NotificacionController {
         }
     }
 
+    /**
+     * Obtiene una página de las notificaciones de un usuario (paginación por clave, más recientes primero).
+     * Requiere que el usuario autenticado sea ADMIN o el propio usuario.
+     * @param idUsuario El ID del usuario cuyas notificaciones se desean obtener.
+     * @param cursor El 'siguienteCursor' devuelto en la página anterior; se omite para la primera página.
+     * @param tamano Número de notificaciones por página (máximo 100).
+     * @return La página de notificaciones, 400 Bad Request si el cursor no es válido.
+     */
+    @GetMapping("/usuario/{idUsuario}/pagina")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<PaginaCursorDTO<Notificacion>> getPaginaNotificaciones(@PathVariable Long idUsuario,
+                                                                                 @RequestParam(required = false) String cursor,
+                                                                                 @RequestParam(defaultValue = "20") int tamano) {
+        try {
+            if (!puedeVerNotificacionesDe(idUsuario)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            return ResponseEntity.ok(notificacionService.getPaginaNotificaciones(idUsuario, cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (RuntimeException e) {
+            System.err.println("Error al obtener notificaciones: " + e.getMessage()); // Log para depuración
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * Emite un ticket de un solo uso, válido unos segundos, para abrir el stream de notificaciones.
+     * @return El ticket, en el campo 'ticket'.
+     */
+    @PostMapping("/stream/ticket")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<Map<String, String>> emitirTicketStream() {
+        UsuarioAutenticado usuario = (UsuarioAutenticado) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return ResponseEntity.ok(Map.of("ticket", ticketStreamService.emitir(usuario)));
+    }
+
+    /**
+     * Abre un stream Server-Sent Events con las notificaciones nuevas del usuario autenticado.
+     * Como EventSource no permite cabeceras, se autentica con un ticket de POST /stream/ticket en el parámetro
+     * 'ticket'. Se reenvían las notificaciones posteriores a la última recibida, indicada en la cabecera
+     * Last-Event-ID (reconexión automática del navegador) o en el parámetro 'ultimoId' (conexión nueva).
+     * @param ultimoId El ID de la última notificación recibida.
+     * @return El stream de eventos 'notificacion'.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public SseEmitter streamNotificaciones(@RequestHeader(value = "Last-Event-ID", required = false) Long ultimoId,
+                                           @RequestParam(value = "ultimoId", required = false) Long ultimoIdParametro) {
+        return notificacionStreamService.conectar(getAuthenticatedUserId(), ultimoId != null ? ultimoId : ultimoIdParametro);
+    }
+
+    /**
+     * Obtiene el número de notificaciones no leídas de un usuario (para el contador del menú).
+     * Requiere que el usuario autenticado sea ADMIN o el propio usuario.
+     * @param idUsuario El ID del usuario.
+     * @return El número de notificaciones no leídas.
+     */
+    @GetMapping("/usuario/{idUsuario}/no-leidas/count")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<Long> contarNoLeidas(@PathVariable Long idUsuario) {
+        try {
+            if (!puedeVerNotificacionesDe(idUsuario)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+            }
+            return ResponseEntity.ok(notificacionService.contarNoLeidas(idUsuario));
+        } catch (RuntimeException e) {
+            System.err.println("Error al contar notificaciones no leídas: " + e.getMessage()); // Log para depuración
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     /**
      * Marca una notificación como leída.
      * Requiere que el usuario autenticado sea ADMIN o el propietario de la notificación.
@@ -90,4 +170,46 @@ public class NotificacionController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
-}
+
+    /**
+     * Marca como leídas todas las notificaciones del usuario autenticado.
+     * @param hastaId Opcional: solo marca las notificaciones con ID menor o igual (las que el usuario ya vio).
+     * @return El número de notificaciones marcadas.
+     */
+    @PutMapping("/marcar-todas-leidas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<Map<String, Integer>> marcarTodasLeidas(@RequestParam(required = false) Long hastaId) {
+        try {
+            Long authenticatedUserId = getAuthenticatedUserId();
+            int marcadas = notificacionService.marcarTodasLeidas(authenticatedUserId, hastaId);
+            return ResponseEntity.ok(Map.of("marcadas", marcadas));
+        } catch (RuntimeException e) {
+            System.err.println("Error al marcar notificaciones como leídas: " + e.getMessage()); // Log para depuración
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * Marca como leídas varias notificaciones en una sola petición.
+     * Requiere que el usuario autenticado sea el propietario de todas ellas.
+     * @param ids Los IDs de las notificaciones (máximo 1000).
+     * @return El número de notificaciones marcadas, 400 Bad Request si la lista no es válida,
+     * 403 Forbidden si alguna es de otro usuario, 404 Not Found si alguna no existe.
+     */
+    @PutMapping("/marcar-leidas")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VOLUNTARIO')")
+    public ResponseEntity<Map<String, Integer>> marcarNotificacionesLeidas(@RequestBody List<Long> ids) {
+        try {
+            Long authenticatedUserId = getAuthenticatedUserId();
+            int marcadas = notificacionService.marcarLeidas(ids, authenticatedUserId);
+            return ResponseEntity.ok(Map.of("marcadas", marcadas));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (RuntimeException e) {
+            System.err.println("Error al marcar notificaciones como leídas: " + e.getMessage()); // Log para depuración
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+}
\ No newline at end of file
@@ -1,13 +1,20 @@
 package org.example.controller;
 
 import org.example.dto.ReporteResumenDTO;
+import org.example.dto.SerieActividadDTO;
+import org.example.model.TipoActividad;
 import org.example.service.ReportesService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/reportes")
 public class ReportesController {
@@ -24,4 +31,31 @@ public class ReportesController {
         ReporteResumenDTO resumen = reportesService.generarResumenReporte();
         return ResponseEntity.ok(resumen);
     }
-}
\ No newline at end of file
+
+    /**
+     * Serie temporal de actividad (solo ADMIN): campañas creadas o iniciadas, inscripciones y anulaciones
+     * (globales o de una campaña), registros de usuarios y voluntarios activos. Por defecto, los últimos 30 días.
+     * Los datos del día en curso pueden ir por detrás hasta un intervalo de agregación.
+     * @return 400 Bad Request si el rango no es válido o el tipo no admite 'campana'.
+     */
+    @GetMapping("/actividad")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SerieActividadDTO> getSerieActividad(
+            @RequestParam TipoActividad tipo,
+            @RequestParam(defaultValue = "DIA") ReportesService.Agrupacion agrupacion,
+            @RequestParam(name = "campana", required = false) Long idCampaña,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        if (hasta == null) {
+            hasta = LocalDate.now();
+        }
+        if (desde == null) {
+            desde = hasta.minusDays(29);
+        }
+        try {
+            return ResponseEntity.ok(reportesService.getSerieActividad(tipo, agrupacion, idCampaña, desde, hasta));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+}
@@ -1,9 +1,20 @@
 package org.example.controller;
 
+import org.example.dto.PaginaCursorDTO;
+import org.example.dto.UsuarioResumenDTO;
+import org.example.event.UsuarioEliminado;
 import org.example.model.Usuario;
 import org.example.repository.UsuarioRepository;
+import org.example.repository.UsuarioRepositoryCustom;
+import org.example.service.ExportacionService;
+import org.example.service.UsuarioDetallesService;
+import org.example.util.CursorUtil;
+import org.example.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -14,6 +25,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -30,6 +42,20 @@ public class UsuarioController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UsuarioDetallesService usuarioDetallesService; // Caché de usuarios autenticados
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // Mantiene al día los contadores de ReportesService
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    private static final int TAMANO_PAGINA_MAXIMO = 100;
+
     public static class UsuarioDTO {
         private Long id;
         private String nombreUsuario;
@@ -89,6 +115,95 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarios);
     }
 
+    // Listado paginado de usuarios (solo ADMIN), con paginación por clave como el de campañas.
+    // 'orden' = nombre (por defecto) | apellido, de la A a la Z, o calificacion, de mayor a menor.
+    // 'busqueda' es un prefijo sin distinguir mayúsculas de 'campo' = nombreUsuario | email | nombre
+    // (por defecto, email si la búsqueda contiene '@' y nombre si no). 'tamano' máximo 100.
+    // Devuelve 400 Bad Request si el orden, el campo o el cursor no son válidos.
+    @GetMapping("/pagina")
+    @PreAuthorize("hasRole('ADMIN')") // Requiere rol ADMIN
+    public ResponseEntity<PaginaCursorDTO<UsuarioResumenDTO>> getPaginaUsuarios(
+            @RequestParam(required = false) String rol,
+            @RequestParam(required = false) Boolean activo,
+            @RequestParam(required = false) String busqueda,
+            @RequestParam(required = false) String campo,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamano) {
+        try {
+            return ResponseEntity.ok(buscarPaginaUsuarios(rol, activo, busqueda, campo, orden, cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    private PaginaCursorDTO<UsuarioResumenDTO> buscarPaginaUsuarios(String rol, Boolean activo, String busqueda,
+                                                                    String campo, String orden, String cursor,
+                                                                    int tamano) {
+        UsuarioRepositoryCustom.Orden campoOrden = switch (orden == null ? "nombre" : orden) {
+            case "nombre" -> UsuarioRepositoryCustom.Orden.NOMBRE;
+            case "apellido" -> UsuarioRepositoryCustom.Orden.APELLIDO;
+            case "calificacion" -> UsuarioRepositoryCustom.Orden.CALIFICACION;
+            default -> throw new IllegalArgumentException("Orden no soportado: " + orden);
+        };
+        String campoPorDefecto = busqueda != null && busqueda.contains("@") ? "email" : "nombre";
+        UsuarioRepositoryCustom.CampoBusqueda campoBusqueda = switch (campo == null ? campoPorDefecto : campo) {
+            case "nombreUsuario" -> UsuarioRepositoryCustom.CampoBusqueda.NOMBRE_USUARIO;
+            case "email" -> UsuarioRepositoryCustom.CampoBusqueda.EMAIL;
+            case "nombre" -> UsuarioRepositoryCustom.CampoBusqueda.NOMBRE;
+            default -> throw new IllegalArgumentException("Campo de búsqueda no soportado: " + campo);
+        };
+
+        Comparable<?> valorDespuesDe = null;
+        Long idDespuesDe = null;
+        if (cursor != null && !cursor.isBlank()) {
+            CursorUtil.PosicionTexto posicion = CursorUtil.decodificarTexto(cursor);
+            try {
+                valorDespuesDe = campoOrden == UsuarioRepositoryCustom.Orden.CALIFICACION
+                        ? Double.valueOf(posicion.valor()) : posicion.valor();
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido.", e);
+            }
+            idDespuesDe = posicion.id();
+        }
+
+        int limite = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        // Se pide un elemento de más para saber si existe una página siguiente
+        List<UsuarioResumenDTO> usuarios = usuarioRepository.buscarPagina(
+                new UsuarioRepositoryCustom.Filtro(rol, activo, campoBusqueda, busqueda),
+                campoOrden, valorDespuesDe, idDespuesDe, limite + 1);
+
+        String siguienteCursor = null;
+        if (usuarios.size() > limite) {
+            usuarios = usuarios.subList(0, limite);
+            UsuarioResumenDTO ultimo = usuarios.get(limite - 1);
+            String valorOrden = switch (campoOrden) {
+                case NOMBRE -> ultimo.getNombre();
+                case APELLIDO -> ultimo.getApellido();
+                case CALIFICACION -> String.valueOf(ultimo.getCalificacion());
+            };
+            siguienteCursor = CursorUtil.codificar(valorOrden, ultimo.getId());
+        }
+        return new PaginaCursorDTO<>(usuarios, siguienteCursor);
+    }
+
+    // Exportación de todos los usuarios (solo ADMIN) en CSV o NDJSON ('formato' = csv | ndjson).
+    // Se escribe página a página en 'exportacionExecutor', sin cargar la lista completa ni ocupar el hilo de la petición.
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMIN')") // Requiere rol ADMIN
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios(@RequestParam(defaultValue = "csv") String formato) {
+        ExportacionService.Formato tipo;
+        try {
+            tipo = ExportacionService.Formato.desde(formato);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(tipo.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"usuarios." + tipo.getExtension() + "\"")
+                .body(salida -> exportacionService.exportarUsuarios(tipo, salida));
+    }
+
     // Endpoint para obtener usuarios por rol (solo ADMIN)
     @GetMapping("/rol/{rol}")
     @PreAuthorize("hasRole('ADMIN')") // Requiere rol ADMIN
@@ -139,12 +254,14 @@ public class UsuarioController {
         existingUser.setTelefono(updatedUsuario.getTelefono());
 
         // Si es ADMIN, puede actualizar el estado 'activo' de cualquier usuario
-        if (isAdmin) {
+        if (isAdmin && existingUser.isActivo() != updatedUsuario.isActivo()) {
             existingUser.setActivo(updatedUsuario.isActivo());
+            existingUser.setVersionToken(existingUser.getVersionToken() + 1); // Revoca los tokens emitidos
         }
 
         // Guardar los cambios
         Usuario savedUsuario = usuarioRepository.save(existingUser);
+        usuarioDetallesService.invalidar(savedUsuario); // Puede haber cambiado 'activo'
         return ResponseEntity.ok(new UsuarioDTO(savedUsuario));
     }
 
@@ -174,21 +291,28 @@ public class UsuarioController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("mensaje", "La contraseña actual es incorrecta."));
         }
 
-        // Cifrar y guardar la nueva contraseña
+        // Cifrar y guardar la nueva contraseña; los tokens emitidos con la anterior quedan revocados
         usuario.setContrasena(passwordEncoder.encode(newPassword));
+        usuario.setVersionToken(usuario.getVersionToken() + 1);
         usuarioRepository.save(usuario);
+        usuarioDetallesService.invalidar(usuario);
 
-        return ResponseEntity.ok(Map.of("mensaje", "Contraseña cambiada exitosamente."));
+        // Se devuelve un token nuevo para que la sesión actual continúe
+        return ResponseEntity.ok(Map.of("mensaje", "Contraseña cambiada exitosamente.",
+                "jwtToken", jwtUtil.generateToken(usuario.toUserDetails())));
     }
 
     // Endpoint para eliminar un usuario (solo ADMIN)
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')") // Requiere rol ADMIN
     public ResponseEntity<Void> deleteUsuario(@PathVariable Long id) {
-        if (!usuarioRepository.existsById(id)) {
+        Optional<Usuario> usuario = usuarioRepository.findById(id);
+        if (usuario.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        usuarioRepository.deleteById(id);
+        usuarioRepository.delete(usuario.get());
+        usuarioDetallesService.invalidar(usuario.get());
+        eventPublisher.publishEvent(new UsuarioEliminado(id, usuario.get().getRol()));
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de la búsqueda de campañas cercanas: la tarjeta de la campaña y su distancia al punto buscado. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampañaCercanaDTO {
+    private CampañaResumenDTO campana;
+    private double distanciaKm;
+}
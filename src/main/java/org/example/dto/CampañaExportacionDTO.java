@@ -0,0 +1,26 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.model.EstadoCampaña;
+
+import java.time.LocalDate;
+
+/**
+ * Fila de la exportación de campañas. Las fechas van en formato ISO (yyyy-MM-dd), tanto en CSV como en NDJSON. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampañaExportacionDTO {
+    private Long id;
+    private String nombre;
+    private String descripcion;
+    private String ubicacion;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private EstadoCampaña estado;
+    private Integer cupoMaximo;
+    private Double latitud;
+    private Double longitud;
+}
@@ -0,0 +1,27 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.model.EstadoCampaña;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección de una campaña para los listados: solo las columnas que muestran las tarjetas.
+ * 'descripcionCorta' son los primeros caracteres de la descripción, recortados en la propia consulta. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampañaResumenDTO {
+    private Long id;
+    private String nombre;
+    private String descripcionCorta;
+    private String ubicacion;
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate fechaInicio;
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate fechaFin;
+    private EstadoCampaña estado;
+}
@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.model.EstadoCampaña;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección de una campaña para el calendario: solo lo que pinta cada evento.
+ * Las fechas van en formato ISO (yyyy-MM-dd), que es el que entiende FullCalendar. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoCalendarioDTO {
+    private Long id;
+    private String nombre;
+    private String ubicacion;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private EstadoCampaña estado;
+}
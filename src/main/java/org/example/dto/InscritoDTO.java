@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila de la exportación de inscritos de una campaña. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InscritoDTO {
+    private Long id;
+    private String nombreUsuario;
+    private String nombre;
+    private String apellido;
+    private String email;
+    private String telefono;
+}
@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados obtenida por paginación por clave (keyset).
+ * 'siguienteCursor' es opaco para el cliente: basta con reenviarlo para pedir la página siguiente,
+ * y es null cuando no hay más resultados. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorDTO<T> {
+    private List<T> elementos;
+    private String siguienteCursor;
+}
@@ -0,0 +1,17 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Un periodo de una serie de actividad: 'periodo' es el primer día del día, semana (lunes) o mes. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PuntoSerieDTO {
+    private LocalDate periodo;
+    private long total;
+}
@@ -0,0 +1,16 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.model.EstadoCampaña;
+
+/**
+ * Número de campañas en un estado (una fila del GROUP BY estado). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecuentoEstadoDTO {
+    private EstadoCampaña estado;
+    private Long total;
+}
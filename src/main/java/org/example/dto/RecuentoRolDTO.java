@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Número de usuarios con un rol (una fila del GROUP BY rol). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecuentoRolDTO {
+    private String rol;
+    private Long total;
+}
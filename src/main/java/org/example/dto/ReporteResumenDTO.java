@@ -3,6 +3,9 @@ package org.example.dto;
 import lombok.Data;         // Para generar automáticamente getters, setters, toString, equals y hashCode
 import lombok.NoArgsConstructor; // Para generar un constructor sin argumentos (necesario para la deserialización)
 import lombok.AllArgsConstructor; // Para generar un constructor con todos los argumentos (útil para inicialización)
+import org.example.model.EstadoCampaña;
+
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -14,4 +17,6 @@ public class ReporteResumenDTO {
     private long campanasPlanificadas; // Añadido para un reporte más completo
     private long totalUsuarios;
     private long totalVoluntarios;
+    private Map<EstadoCampaña, Long> campanasPorEstado; // Todos los estados, incluidos los que no tienen campañas
+    private Map<String, Long> usuariosPorRol;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package org.example.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva de inscripciones.
+ * 'identificadoresNoEncontrados' lista como mucho los primeros 100; 'noEncontrados' es el total. */
+@Data
+public class ResultadoImportacionDTO {
+    private long procesados; // Líneas con un nombre de usuario o email
+    private long inscritos;
+    private long yaInscritos;
+    private long sinPlaza; // Voluntarios que no cupieron por el cupo de la campaña
+    private long noEncontrados; // Identificadores que no corresponden a ningún voluntario
+    private List<String> identificadoresNoEncontrados = new ArrayList<>();
+}
@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.model.TipoActividad;
+import org.example.service.ReportesService.Agrupacion;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serie temporal de un tipo de actividad, con un punto por periodo (incluidos los periodos sin actividad).
+ * Para VOLUNTARIO_ACTIVO, una semana o un mes suman los voluntarios activos de cada día (voluntarios-día). */
+@Data
+@NoArgsConstructor
+public class SerieActividadDTO {
+    private TipoActividad tipo;
+    private Agrupacion agrupacion;
+    private Long idCampana; // null en las series globales
+    private LocalDate desde;
+    private LocalDate hasta;
+    private long total;
+    private List<PuntoSerieDTO> puntos = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sugerencia del autocompletado de campañas: el nombre tal como se muestra y el ID para abrirla. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SugerenciaCampañaDTO {
+    private Long id;
+    private String nombre;
+}
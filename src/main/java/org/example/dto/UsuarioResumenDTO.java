@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Proyección de un usuario para los listados y la exportación: los mismos campos que UsuarioController.UsuarioDTO,
+ * leídos en la consulta sin cargar la entidad (ni el hash de la contraseña). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsuarioResumenDTO {
+    private Long id;
+    private String nombreUsuario;
+    private String nombre;
+    private String apellido;
+    private String email;
+    private String telefono;
+    private String rol;
+    private double calificacion;
+    private boolean activo;
+}
@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ID de un voluntario junto al identificador (nombre de usuario o email) con el que se ha encontrado. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoluntarioIdentificadoDTO {
+    private Long id;
+    private String identificador;
+}
@@ -0,0 +1,9 @@
+package org.example.event;
+
+import org.example.model.EstadoCampaña;
+
+/**
+ * Se han modificado los datos de una campaña. */
+public record CampañaActualizada(Long idCampaña, String nombre, EstadoCampaña estadoAnterior,
+                                 EstadoCampaña estadoNuevo, Long idAdmin) implements EventoDominio {
+}
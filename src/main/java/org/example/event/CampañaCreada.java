@@ -0,0 +1,8 @@
+package org.example.event;
+
+import org.example.model.EstadoCampaña;
+
+/**
+ * Se ha creado una campaña. */
+public record CampañaCreada(Long idCampaña, String nombre, String ubicacion, EstadoCampaña estado, Long idAdmin) implements EventoDominio {
+}
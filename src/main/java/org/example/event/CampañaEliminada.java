@@ -0,0 +1,11 @@
+package org.example.event;
+
+import org.example.model.EstadoCampaña;
+
+import java.util.List;
+
+/**
+ * Se ha eliminado una campaña. Lleva los IDs de los voluntarios que estaban inscritos,
+ * ya que las inscripciones desaparecen junto con la campaña. */
+public record CampañaEliminada(Long idCampaña, String nombre, EstadoCampaña estado, List<Long> idsInscritos, Long idAdmin) implements EventoDominio {
+}
@@ -0,0 +1,8 @@
+package org.example.event;
+
+/**
+ * Marca los eventos de dominio que emite CampañaService.
+ * Se publican dentro de la transacción de negocio; OutboxService los traduce a filas de la
+ * tabla de salida en esa misma transacción, y los oyentes posteriores al commit pueden reaccionar a ellos. */
+public interface EventoDominio {
+}
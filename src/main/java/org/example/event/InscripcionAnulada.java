@@ -0,0 +1,6 @@
+package org.example.event;
+
+/**
+ * Un voluntario ha anulado su inscripción en una campaña. */
+public record InscripcionAnulada(Long idCampaña, String nombreCampaña, Long idVoluntario) implements EventoDominio {
+}
@@ -0,0 +1,9 @@
+package org.example.event;
+
+import java.util.List;
+
+/**
+ * Se han insertado notificaciones para estos usuarios. Lo publica NotificacionService y
+ * NotificacionStreamService lo usa, tras el commit, para empujarlas a los clientes conectados. */
+public record NotificacionesCreadas(List<Long> idsUsuario) {
+}
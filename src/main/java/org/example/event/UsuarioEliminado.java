@@ -0,0 +1,6 @@
+package org.example.event;
+
+/**
+ * Se ha eliminado un usuario. Como UsuarioRegistrado, solo lo escuchan los contadores de ReportesService. */
+public record UsuarioEliminado(Long idUsuario, String rol) {
+}
@@ -0,0 +1,7 @@
+package org.example.event;
+
+/**
+ * Se ha registrado un usuario. No genera notificaciones (no es un EventoDominio): lo escuchan los contadores
+ * de ReportesService y el registro de actividad. */
+public record UsuarioRegistrado(Long idUsuario, String rol) {
+}
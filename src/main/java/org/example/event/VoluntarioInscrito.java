@@ -0,0 +1,6 @@
+package org.example.event;
+
+/**
+ * Un voluntario se ha inscrito en una campaña. */
+public record VoluntarioInscrito(Long idCampaña, String nombreCampaña, Long idVoluntario) implements EventoDominio {
+}
@@ -0,0 +1,9 @@
+package org.example.event;
+
+import java.util.List;
+
+/**
+ * Un administrador ha inscrito a varios voluntarios a la vez (importación masiva).
+ * Se publica uno por lote, con los voluntarios realmente inscritos en él. */
+public record VoluntariosInscritosEnBloque(Long idCampaña, String nombreCampaña, List<Long> idsVoluntarios) implements EventoDominio {
+}
@@ -1,30 +1,84 @@
 package org.example.filter;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.model.UsuarioAutenticado;
+import org.example.service.TicketStreamService;
+import org.example.service.UsuarioDetallesService;
 import org.example.util.JwtUtil; // Importar la clase JwtUtil que creamos
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private final UserDetailsService userDetailsService;
+    private static final String RUTA_STREAM = "/api/notificaciones/stream";
+    private static final String PREFIJO_ROL = "ROLE_";
+
+    private final UsuarioDetallesService usuarioDetallesService;
     private final JwtUtil jwtUtil;
+    private final TicketStreamService ticketStreamService;
+
+    // Si es true, la firma, la expiración y los claims del token bastan para autenticar (sin leer el usuario)
+    private final boolean validacionSinEstado;
 
-    // Inyección de dependencias de UserDetailsService y JwtUtil
-    public JwtRequestFilter(UserDetailsService userDetailsService, JwtUtil jwtUtil) {
-        this.userDetailsService = userDetailsService;
+    // Tokens ya verificados, por hash SHA-256: una petición repetida con el mismo token no vuelve a verificar
+    // la firma ni a decodificar los claims. La revocación se sigue comprobando en cada petición.
+    private final Cache<String, TokenVerificado> tokensVerificados;
+
+    // Inyección de dependencias del servicio de usuarios y JwtUtil
+    public JwtRequestFilter(UsuarioDetallesService usuarioDetallesService, JwtUtil jwtUtil,
+                            TicketStreamService ticketStreamService, MeterRegistry meterRegistry,
+                            @Value("${jwt.validacion-sin-estado:true}") boolean validacionSinEstado,
+                            @Value("${jwt.cache-tokens.tamano-maximo:10000}") long tamanoMaximo,
+                            @Value("${jwt.cache-tokens.margen-expiracion-segundos:30}") long margenExpiracionSegundos) {
+        this.usuarioDetallesService = usuarioDetallesService;
         this.jwtUtil = jwtUtil;
+        this.ticketStreamService = ticketStreamService;
+        this.validacionSinEstado = validacionSinEstado;
+        long margenMs = TimeUnit.SECONDS.toMillis(margenExpiracionSegundos);
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                // Cada token se descarta un poco antes de su 'exp'; a partir de ahí se vuelve a verificar (y a rechazar)
+                .expireAfter(new Expiry<String, TokenVerificado>() {
+                    @Override
+                    public long expireAfterCreate(String clave, TokenVerificado token, long ahoraNanos) {
+                        long restanteMs = token.expiraEnMs() - margenMs - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, restanteMs));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String clave, TokenVerificado token, long ahoraNanos, long duracionActual) {
+                        return duracionActual;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String clave, TokenVerificado token, long ahoraNanos, long duracionActual) {
+                        return duracionActual;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokensVerificados, "tokens-verificados");
     }
 
     @Override
@@ -34,26 +88,26 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         // Obtener el encabezado de autorización de la petición
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
         String jwt = null;
+        String ticket = null;
 
         // Verificar si el encabezado de autorización existe y tiene el formato "Bearer token"
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7); // Extraer el token (después de "Bearer ")
-            username = jwtUtil.extractUsername(jwt); // Extraer el nombre de usuario del token
+        } else if (RUTA_STREAM.equals(request.getServletPath())) {
+            // EventSource no puede enviar cabeceras: el stream SSE se abre con un ticket de un solo uso, nunca con el JWT
+            ticket = request.getParameter("ticket");
         }
 
-        // Si se extrajo un nombre de usuario y no hay autenticación en el contexto de seguridad actual
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Si hay token y no hay autenticación en el contexto de seguridad actual
+        if ((jwt != null || ticket != null) && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            // Cargar los detalles del usuario usando el nombre de usuario
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UsuarioAutenticado usuario = jwt != null ? autenticar(jwt) : autenticarTicket(ticket);
 
-            // Validar el token JWT
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (usuario != null) {
                 // Si el token es válido, crear un objeto de autenticación
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
                 // Establecer los detalles de la autenticación (dirección IP, sesión, etc.)
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -64,4 +118,81 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         // Continuar con la cadena de filtros de Spring Security
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Verifica el token y construye el principal de la petición.
+     * @return El usuario autenticado, o null si el token fue revocado o no corresponde a un usuario válido.
+     */
+    private UsuarioAutenticado autenticar(String jwt) {
+        if (!validacionSinEstado) {
+            return autenticarConUsuario(jwtUtil.extractAllClaims(jwt));
+        }
+
+        String clave = hashToken(jwt);
+        TokenVerificado token = tokensVerificados.getIfPresent(clave);
+        if (token == null) {
+            // Verifica firma y expiración (lanza excepción si no son válidas); el token solo se parsea aquí
+            Claims claims = jwtUtil.extractAllClaims(jwt);
+            token = TokenVerificado.de(claims);
+            if (token == null) {
+                return autenticarConUsuario(claims);
+            }
+            tokensVerificados.put(clave, token);
+        }
+
+        // Solo se comprueba que el token no haya sido revocado (versión en caché; consulta a la base de datos si falta).
+        // Así, desactivar al usuario o cambiar su contraseña también invalida los tokens que estén en esta caché.
+        if (!usuarioDetallesService.esVersionTokenVigente(token.idUsuario(), token.versionToken())) {
+            return null;
+        }
+        return new UsuarioAutenticado(token.idUsuario(), token.nombreUsuario(), "", token.rol(), true, token.versionToken());
+    }
+
+    /**
+     * El ticket se consume aquí; el token con el que se pidió debe seguir vigente (no revocado desde entonces).
+     */
+    private UsuarioAutenticado autenticarTicket(String ticket) {
+        UsuarioAutenticado usuario = ticketStreamService.canjear(ticket);
+        if (usuario == null || !usuarioDetallesService.esVersionTokenVigente(usuario.getId(), usuario.getVersionToken())) {
+            return null;
+        }
+        return usuario;
+    }
+
+    /**
+     * Tokens emitidos antes de incluir los claims de ID y versión, o validación con estado: se carga el usuario.
+     */
+    private UsuarioAutenticado autenticarConUsuario(Claims claims) {
+        Integer versionToken = claims.get(JwtUtil.CLAIM_VERSION_TOKEN, Integer.class);
+        UsuarioAutenticado usuario = usuarioDetallesService.loadUserByUsername(claims.getSubject());
+        boolean revocado = !usuario.isEnabled() || (versionToken != null && versionToken != usuario.getVersionToken());
+        return !revocado && jwtUtil.validateToken(claims, usuario) ? usuario : null;
+    }
+
+    private static String hashToken(String jwt) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e); // Obligatorio en toda JVM
+        }
+    }
+
+    /**
+     * Datos de un token cuya firma ya se verificó.
+     */
+    private record TokenVerificado(Long idUsuario, String nombreUsuario, String rol, int versionToken, long expiraEnMs) {
+
+        // Devuelve null si el token no trae los claims necesarios para autenticar sin leer el usuario
+        static TokenVerificado de(Claims claims) {
+            Long idUsuario = claims.get(JwtUtil.CLAIM_ID_USUARIO, Long.class);
+            Integer versionToken = claims.get(JwtUtil.CLAIM_VERSION_TOKEN, Integer.class);
+            String rol = claims.get(JwtUtil.CLAIM_ROL, String.class);
+            if (idUsuario == null || versionToken == null || rol == null || claims.getExpiration() == null) {
+                return null;
+            }
+            return new TokenVerificado(idUsuario, claims.getSubject(), rol.substring(PREFIJO_ROL.length()),
+                    versionToken, claims.getExpiration().getTime());
+        }
+    }
 }
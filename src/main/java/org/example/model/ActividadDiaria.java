@@ -0,0 +1,38 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Total diario de un tipo de actividad, global (id_campana = 0) o de una campaña (solo inscripciones y
+ * anulaciones). Las series de /api/reportes/actividad se leen de aquí: un año son 365 filas por serie,
+ * sin recorrer campana_voluntarios ni el registro de actividad. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(ActividadDiariaId.class)
+@Table(name = "actividad_diaria", indexes = @Index(name = "idx_actividad_diaria_serie", columnList = "tipo, id_campana, dia"))
+public class ActividadDiaria {
+
+    public static final long GLOBAL = 0L;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 30)
+    private TipoActividad tipo;
+
+    @Id
+    @Column(name = "id_campana")
+    private Long idCampaña;
+
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private long total;
+}
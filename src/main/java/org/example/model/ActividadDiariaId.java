@@ -0,0 +1,19 @@
+package org.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Clave primaria compuesta de {@link ActividadDiaria}: (tipo, campaña, día). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActividadDiariaId implements Serializable {
+    private TipoActividad tipo;
+    private Long idCampaña;
+    private LocalDate dia;
+}
@@ -5,14 +5,19 @@ import lombok.Data;
 import lombok.NoArgsConstructor; // Importación para @NoArgsConstructor
 import lombok.AllArgsConstructor; // Importación para @AllArgsConstructor
 import com.fasterxml.jackson.annotation.JsonFormat;
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @Entity
-@Table(name = "campanas")
+@Table(name = "campanas", indexes = {
+        // Listado paginado por clave: filtrado por estado y ordenado por fecha de inicio, o sin filtro de estado
+        // ordenado por fecha de inicio o por nombre. El ID desempata y completa la clave del cursor.
+        // idx_campanas_fecha_inicio sirve también al calendario (rango acotado de fecha_inicio, ver CampañaService).
+        @Index(name = "idx_campanas_estado_fecha_inicio", columnList = "estado, fecha_inicio, id"),
+        @Index(name = "idx_campanas_fecha_inicio", columnList = "fecha_inicio, id"),
+        @Index(name = "idx_campanas_nombre", columnList = "nombre, id")
+})
 @Data // Anotación de Lombok para generar getters, setters, toString, equals y hashCode
 @NoArgsConstructor // Anotación de Lombok para generar un constructor sin argumentos
 @AllArgsConstructor // Anotación de Lombok para generar un constructor con todos los argumentos
@@ -43,12 +48,19 @@ public class Campaña {
     @Column(nullable = false, length = 50)
     private EstadoCampaña estado; // Usa el Enum definido
 
-    @JsonIgnore // Evita que la relación bidireccional cause un bucle infinito en la serialización JSON
-    @ManyToMany(fetch = FetchType.LAZY) // Añadido fetch = FetchType.LAZY para evitar carga innecesaria
-    @JoinTable(
-            name = "campana_voluntarios",
-            joinColumns = @JoinColumn(name = "campana_id"),
-            inverseJoinColumns = @JoinColumn(name = "voluntario_id")
-    )
-    private Set<Usuario> voluntariosInscritos = new HashSet<>();
-}
\ No newline at end of file
+    // Plazas disponibles; null = sin límite
+    @Column(name = "cupo_maximo")
+    private Integer cupoMaximo;
+
+    // Posición del lugar de la campaña (grados WGS84), opcional: sin ella la campaña no aparece en la búsqueda
+    // de campañas cercanas. Se indican las dos o ninguna.
+    private Double latitud;
+    private Double longitud;
+
+    // Voluntarios inscritos. Solo lo modifican las sentencias de inscripción de CampañaService (nunca la entidad,
+    // para que guardar una campaña no pise el contador). Es null hasta la primera inscripción, que lo
+    // inicializa con el recuento real (campañas anteriores al contador).
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(insertable = false, updatable = false)
+    private Integer inscritos;
+}
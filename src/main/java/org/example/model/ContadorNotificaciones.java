@@ -0,0 +1,28 @@
+package org.example.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Número de notificaciones no leídas de cada usuario.
+ * Se mantiene en NotificacionService junto con cada inserción o cambio de 'leida', para que el contador
+ * del frontend no tenga que recorrer la bandeja. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "contadores_notificaciones")
+public class ContadorNotificaciones {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "no_leidas", nullable = false)
+    private long noLeidas;
+}
@@ -0,0 +1,30 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Destinatario de un EventoSalida de tipo LISTA (tabla evento_salida_destinatarios).
+ * Las filas se insertan por lotes junto con el evento (ver OutboxService) y el DespachadorNotificaciones las
+ * recorre por clave desde el cursor del evento; se borran al terminar de despacharlo. */
+@Getter
+@NoArgsConstructor
+@Entity
+@IdClass(DestinatarioEventoSalidaId.class)
+@Table(name = "evento_salida_destinatarios")
+public class DestinatarioEventoSalida {
+
+    @Id
+    @Column(name = "evento_id")
+    private Long idEvento;
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long idUsuario;
+
+    // Solo de lectura: declara la clave foránea hacia eventos_salida
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "evento_id", insertable = false, updatable = false)
+    private EventoSalida evento;
+}
@@ -0,0 +1,17 @@
+package org.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Clave primaria compuesta de {@link DestinatarioEventoSalida}: (evento, usuario). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinatarioEventoSalidaId implements Serializable {
+    private Long idEvento;
+    private Long idUsuario;
+}
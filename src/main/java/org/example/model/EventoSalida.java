@@ -0,0 +1,68 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila de la tabla de salida (outbox) de notificaciones.
+ * Se inserta en la misma transacción que la operación de negocio y el DespachadorNotificaciones
+ * la expande después en filas de 'notificaciones', por lotes de destinatarios. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "eventos_salida", indexes = @Index(name = "idx_eventos_salida_procesado", columnList = "procesado, id"))
+public class EventoSalida {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tipo_evento", nullable = false, length = 50)
+    private String tipoEvento; // Nombre del evento de dominio que lo originó (ej. "CampañaCreada")
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_destino", nullable = false, length = 30)
+    private TipoDestino tipoDestino;
+
+    @Column(nullable = false, length = 50) // Un ID, un rol o un número de destinatarios (ver TipoDestino)
+    private String destino;
+
+    private String titulo;
+    private String mensaje;
+
+    // Plantilla creada al despachar el primer lote; la comparten todas las notificaciones del evento.
+    @Column(name = "id_plantilla")
+    private Long idPlantilla;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    // Último ID de usuario ya notificado. Avanza en la misma transacción que cada lote insertado,
+    // por lo que (id, ultimoIdUsuario) actúa como clave de idempotencia al reintentar.
+    @Column(name = "ultimo_id_usuario", nullable = false)
+    private Long ultimoIdUsuario = 0L;
+
+    @Column(name = "reclamado_por", length = 36)
+    private String reclamadoPor; // Token de la reserva vigente
+
+    @Column(name = "reclamado_hasta")
+    private LocalDateTime reclamadoHasta; // Vencimiento de la reserva; al expirar otro trabajador puede retomarlo
+
+    @Column(nullable = false)
+    private int intentos; // Reservas que ha recibido el evento
+
+    // Agotó los intentos sin despacharse: ya no se reclama y queda en la tabla para revisarlo
+    @Column(columnDefinition = "BOOLEAN DEFAULT FALSE NOT NULL")
+    private boolean fallido;
+
+    @Column(nullable = false)
+    private boolean procesado;
+
+    @Column(name = "fecha_procesado")
+    private LocalDateTime fechaProcesado;
+}
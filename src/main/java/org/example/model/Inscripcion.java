@@ -0,0 +1,34 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Inscripción de un voluntario en una campaña (tabla campana_voluntarios).
+ * La clave primaria (campana_id, voluntario_id) impide inscripciones duplicadas; las altas y bajas se hacen con
+ * un INSERT/DELETE directo (ver CampañaService) sin cargar la lista de inscritos de la campaña. */
+@Getter
+@NoArgsConstructor
+@Entity
+@IdClass(InscripcionId.class)
+@Table(name = "campana_voluntarios")
+public class Inscripcion {
+
+    @Id
+    @Column(name = "campana_id")
+    private Long idCampaña;
+
+    @Id
+    @Column(name = "voluntario_id")
+    private Long idVoluntario;
+
+    // Solo de lectura: declaran las claves foráneas hacia campanas y usuarios
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "campana_id", insertable = false, updatable = false)
+    private Campaña campaña;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "voluntario_id", insertable = false, updatable = false)
+    private Usuario voluntario;
+}
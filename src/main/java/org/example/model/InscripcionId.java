@@ -0,0 +1,17 @@
+package org.example.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Clave primaria compuesta de {@link Inscripcion}: (campaña, voluntario). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InscripcionId implements Serializable {
+    private Long idCampaña;
+    private Long idVoluntario;
+}
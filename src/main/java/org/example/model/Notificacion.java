@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "notificaciones")
+@Table(name = "notificaciones",
+        indexes = @Index(name = "idx_notificaciones_usuario_fecha", columnList = "id_usuario, fecha_creacion DESC, id DESC"))
 public class Notificacion {
 
     @Id
@@ -21,11 +22,20 @@ public class Notificacion {
     @Column(name = "id_usuario", nullable = false)
     private Long idUsuario;
 
+    // Plantilla con el texto de la notificación. Las notificaciones antiguas no tienen plantilla
+    // y guardan el texto en 'titulo'/'mensaje'.
+    @Column(name = "id_plantilla")
+    private Long idPlantilla;
+
+    // Para las notificaciones con plantilla se rellenan al leerlas (NotificacionService); no se
+    // actualizan nunca desde la entidad para que ese texto renderizado no acabe escrito en cada fila.
+    @Column(updatable = false)
     private String titulo;
+    @Column(updatable = false)
     private String mensaje;
 
     @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
     private boolean leida; // Indica si la notificación ha sido leída
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del registro de actividad: solo se añaden filas, en la misma transacción que la operación de negocio
+ * (ver RegistroActividadService). El AgregadorActividad las suma a los agregados diarios y las marca como
+ * agregadas; pasado el periodo de retención se eliminan. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "registro_actividad", indexes = {
+        @Index(name = "idx_registro_actividad_agregado", columnList = "agregado, id"),
+        @Index(name = "idx_registro_actividad_fecha", columnList = "fecha")
+})
+public class RegistroActividad {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TipoActividad tipo;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+
+    // Sin claves foráneas: el historial se conserva aunque se eliminen la campaña o el usuario
+    @Column(name = "id_campana")
+    private Long idCampaña;
+
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(nullable = false)
+    private boolean agregado;
+}
@@ -0,0 +1,12 @@
+package org.example.model;
+
+/**
+ * Tipo de una fila del registro de actividad y de los agregados diarios que se calculan a partir de él. */
+public enum TipoActividad {
+    CAMPANA_CREADA,     // id_campana = campaña creada
+    CAMPANA_INICIADA,   // La campaña pasa a ACTIVA (o se crea ya activa)
+    INSCRIPCION,        // id_campana + id_usuario (voluntario)
+    ANULACION,          // id_campana + id_usuario (voluntario)
+    REGISTRO,           // id_usuario = usuario registrado
+    VOLUNTARIO_ACTIVO   // Solo en los agregados: voluntarios distintos que se inscribieron o anularon ese día
+}
@@ -0,0 +1,10 @@
+package org.example.model;
+
+/**
+ * Forma en que se resuelven los destinatarios de un EventoSalida. */
+public enum TipoDestino {
+    USUARIO,            // destino = ID de un único usuario
+    ROL,                // destino = nombre del rol (todos los usuarios con ese rol)
+    INSCRITOS_CAMPANA,  // destino = ID de la campaña (sus voluntarios inscritos al momento del despacho)
+    LISTA               // destino = número de destinatarios (sus IDs están en evento_salida_destinatarios)
+}
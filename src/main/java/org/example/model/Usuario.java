@@ -6,20 +6,24 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
-import java.util.Collection;
-import java.util.Collections;
-
 @Entity
-@Table(name = "usuarios")
+@Table(name = "usuarios", indexes = {
+        // Orden del listado de administración (el ID desempata en la paginación por clave)
+        @Index(name = "idx_usuarios_nombre", columnList = "nombre, id"),
+        @Index(name = "idx_usuarios_apellido", columnList = "apellido, id"),
+        @Index(name = "idx_usuarios_calificacion", columnList = "calificacion DESC, id DESC"),
+        // Búsqueda por prefijo sin distinguir mayúsculas
+        @Index(name = "idx_usuarios_nombre_usuario_busqueda", columnList = "nombre_usuario_busqueda"),
+        @Index(name = "idx_usuarios_email_busqueda", columnList = "email_busqueda"),
+        @Index(name = "idx_usuarios_nombre_busqueda", columnList = "nombre_busqueda")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -57,19 +61,29 @@ public class Usuario {
     @Column(nullable = false)
     private boolean activo;
 
+    // Se incrementa para revocar los JWT ya emitidos (cambio de contraseña, desactivación)
+    @JsonIgnore
+    @Column(name = "version_token", columnDefinition = "INTEGER DEFAULT 0 NOT NULL")
+    private int versionToken;
+
+    // Copias en minúsculas que calcula la base de datos; solo existen para poder indexar la búsqueda
+    @JsonIgnore
+    @Column(name = "nombre_usuario_busqueda", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(50) GENERATED ALWAYS AS (LOWER(nombre_usuario))")
+    private String nombreUsuarioBusqueda;
+
+    @JsonIgnore
+    @Column(name = "email_busqueda", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(100) GENERATED ALWAYS AS (LOWER(email))")
+    private String emailBusqueda;
+
+    @JsonIgnore
+    @Column(name = "nombre_busqueda", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(100) GENERATED ALWAYS AS (LOWER(nombre))")
+    private String nombreBusqueda;
+
     @JsonIgnore
-    public UserDetails toUserDetails() {
-        Collection<? extends GrantedAuthority> authorities =
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + this.rol));
-
-        return new org.springframework.security.core.userdetails.User(
-                this.nombreUsuario,
-                this.contrasena,
-                this.activo,
-                true,
-                true,
-                true,
-                authorities
-        );
+    public UsuarioAutenticado toUserDetails() {
+        return new UsuarioAutenticado(this.id, this.nombreUsuario, this.contrasena, this.rol, this.activo, this.versionToken, this);
     }
 }
\ No newline at end of file
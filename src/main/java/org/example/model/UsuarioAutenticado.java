@@ -0,0 +1,49 @@
+package org.example.model;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+
+/**
+ * Principal de Spring Security que, además del nombre de usuario, lleva el ID y el rol del usuario.
+ * Así los controladores no necesitan volver a consultar la tabla de usuarios para saber quién hace la petición.
+ * Cuando el principal se construyó a partir de la base de datos (login), lleva además el {@link Usuario} cargado.
+ */
+public class UsuarioAutenticado extends User {
+
+    private final Long id;
+    private final String rol;
+    private final int versionToken;
+    private final Usuario usuario; // Solo lectura; null si el principal se construyó a partir de los claims del JWT
+
+    public UsuarioAutenticado(Long id, String nombreUsuario, String contrasena, String rol, boolean activo, int versionToken) {
+        this(id, nombreUsuario, contrasena, rol, activo, versionToken, null);
+    }
+
+    public UsuarioAutenticado(Long id, String nombreUsuario, String contrasena, String rol, boolean activo, int versionToken,
+                              Usuario usuario) {
+        super(nombreUsuario, contrasena, activo, true, true, true,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + rol)));
+        this.id = id;
+        this.rol = rol;
+        this.versionToken = versionToken;
+        this.usuario = usuario;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRol() {
+        return rol;
+    }
+
+    public int getVersionToken() {
+        return versionToken;
+    }
+
+    public Usuario getUsuario() {
+        return usuario;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.repository;
+
+import org.example.model.ActividadDiaria;
+import org.example.model.ActividadDiariaId;
+import org.example.model.TipoActividad;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ActividadDiariaRepository extends JpaRepository<ActividadDiaria, ActividadDiariaId> {
+
+    // Días con actividad de una serie dentro de [desde, hasta]; los días sin fila valen cero.
+    @Query("SELECT a FROM ActividadDiaria a WHERE a.tipo = :tipo AND a.idCampaña = :idCampaña " +
+           "AND a.dia >= :desde AND a.dia <= :hasta ORDER BY a.dia")
+    List<ActividadDiaria> findSerie(@Param("tipo") TipoActividad tipo, @Param("idCampaña") Long idCampaña,
+                                    @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
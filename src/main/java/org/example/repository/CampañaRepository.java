@@ -1,17 +1,50 @@
 package org.example.repository;
 
+import org.example.dto.CampañaExportacionDTO;
+import org.example.dto.CampañaResumenDTO;
+import org.example.dto.EventoCalendarioDTO;
+import org.example.dto.RecuentoEstadoDTO;
 import org.example.model.Campaña;
 import org.example.model.EstadoCampaña;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface CampañaRepository extends JpaRepository<Campaña, Long> {
+public interface CampañaRepository extends JpaRepository<Campaña, Long>, CampañaRepositoryCustom {
     List<Campaña> findByEstado(EstadoCampaña estado); // Cambiado de String a EstadoCampaña
     List<Campaña> findByUbicacionContainingIgnoreCase(String ubicacion);
 
-    // Métod para contar campañas por estado: Ahora recibe el ENUM directamente
-    long countByEstado(EstadoCampaña estado); // Cambiado de String a EstadoCampaña
-}
\ No newline at end of file
+    // Campañas por estado en una sola pasada; los estados sin campañas no aparecen
+    @Query("SELECT new org.example.dto.RecuentoEstadoDTO(c.estado, COUNT(c)) FROM Campaña c GROUP BY c.estado")
+    List<RecuentoEstadoDTO> contarPorEstado();
+
+    // Campañas que se solapan con la ventana [desde, hasta] del calendario, proyectadas a los campos del evento.
+    // 'inicioMinimo' (desde menos la duración de la campaña más larga) acota por abajo el rango sobre fecha_inicio,
+    // de modo que se recorre solo ese tramo del índice y no todo el histórico anterior a la ventana.
+    @Query("SELECT new org.example.dto.EventoCalendarioDTO(c.id, c.nombre, c.ubicacion, c.fechaInicio, c.fechaFin, c.estado) " +
+           "FROM Campaña c WHERE c.fechaInicio >= :inicioMinimo AND c.fechaInicio <= :hasta AND c.fechaFin >= :desde " +
+           "ORDER BY c.fechaInicio, c.id")
+    List<EventoCalendarioDTO> findEventosEnVentana(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta,
+                                                   @Param("inicioMinimo") LocalDate inicioMinimo);
+
+    // Duración en días de la campaña más larga (0 si no hay campañas).
+    @Query("SELECT COALESCE(MAX((c.fechaFin - c.fechaInicio) BY DAY), 0) FROM Campaña c")
+    long findDuracionMaximaDias();
+
+    // Página de la exportación de campañas (paginación por clave sobre la clave primaria).
+    @Query("SELECT new org.example.dto.CampañaExportacionDTO(c.id, c.nombre, c.descripcion, c.ubicacion, c.fechaInicio, " +
+           "c.fechaFin, c.estado, c.cupoMaximo, c.latitud, c.longitud) FROM Campaña c WHERE c.id > :despuesDe ORDER BY c.id")
+    List<CampañaExportacionDTO> findExportacionDespuesDe(@Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // Campañas con esos IDs proyectadas a las tarjetas (resultados de la búsqueda de texto completo), sin orden.
+    @Query("SELECT new org.example.dto.CampañaResumenDTO(c.id, c.nombre, SUBSTRING(c.descripcion, 1, 100), c.ubicacion, " +
+           "c.fechaInicio, c.fechaFin, c.estado) FROM Campaña c WHERE c.id IN :ids")
+    List<CampañaResumenDTO> findResumenPorIds(@Param("ids") Collection<Long> ids);
+}
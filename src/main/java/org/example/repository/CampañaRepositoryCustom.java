@@ -0,0 +1,46 @@
+package org.example.repository;
+
+import org.example.dto.CampañaResumenDTO;
+import org.example.model.EstadoCampaña;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Consultas de campañas con filtros y orden variables, que no se pueden expresar con una única @Query.
+ */
+public interface CampañaRepositoryCustom {
+
+    /**
+     * Campos por los que se puede ordenar el listado. El ID se usa siempre como desempate.
+     */
+    enum Orden {
+        FECHA_INICIO("fechaInicio"),
+        NOMBRE("nombre");
+
+        private final String atributo;
+
+        Orden(String atributo) {
+            this.atributo = atributo;
+        }
+
+        public String getAtributo() {
+            return atributo;
+        }
+    }
+
+    /**
+     * Filtros opcionales (null = sin filtrar). 'fechaInicio' y 'fechaFin' acotan las campañas que empiezan
+     * a partir de la primera y terminan como muy tarde en la segunda; 'ubicacion' busca por subcadena sin mayúsculas.
+     */
+    record Filtro(EstadoCampaña estado, LocalDate fechaInicio, LocalDate fechaFin, String ubicacion) {
+    }
+
+    /**
+     * Devuelve una página de resúmenes de campañas por paginación por clave.
+     * @param valorDespuesDe Valor del campo de orden de la última campaña de la página anterior (null en la primera).
+     * @param idDespuesDe ID de esa misma campaña, para desempatar.
+     */
+    List<CampañaResumenDTO> buscarPagina(Filtro filtro, Orden orden, boolean ascendente,
+                                         Comparable<?> valorDespuesDe, Long idDespuesDe, int limite);
+}
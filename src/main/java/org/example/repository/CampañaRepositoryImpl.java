@@ -0,0 +1,87 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.dto.CampañaResumenDTO;
+import org.example.model.Campaña;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación de {@link CampañaRepositoryCustom} con la API Criteria: proyecta directamente al DTO,
+ * de modo que no se cargan entidades ni la descripción completa.
+ */
+public class CampañaRepositoryImpl implements CampañaRepositoryCustom {
+
+    private static final int LONGITUD_DESCRIPCION_CORTA = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<CampañaResumenDTO> buscarPagina(Filtro filtro, Orden orden, boolean ascendente,
+                                                Comparable<?> valorDespuesDe, Long idDespuesDe, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CampañaResumenDTO> query = cb.createQuery(CampañaResumenDTO.class);
+        Root<Campaña> campaña = query.from(Campaña.class);
+
+        query.select(cb.construct(CampañaResumenDTO.class,
+                campaña.get("id"),
+                campaña.get("nombre"),
+                cb.substring(campaña.get("descripcion"), 1, LONGITUD_DESCRIPCION_CORTA),
+                campaña.get("ubicacion"),
+                campaña.get("fechaInicio"),
+                campaña.get("fechaFin"),
+                campaña.get("estado")));
+
+        List<Predicate> condiciones = new ArrayList<>();
+        if (filtro.estado() != null) {
+            condiciones.add(cb.equal(campaña.get("estado"), filtro.estado()));
+        }
+        if (filtro.fechaInicio() != null) {
+            condiciones.add(cb.greaterThanOrEqualTo(campaña.get("fechaInicio"), filtro.fechaInicio()));
+        }
+        if (filtro.fechaFin() != null) {
+            condiciones.add(cb.lessThanOrEqualTo(campaña.get("fechaFin"), filtro.fechaFin()));
+        }
+        if (filtro.ubicacion() != null && !filtro.ubicacion().isBlank()) {
+            condiciones.add(cb.like(cb.lower(campaña.get("ubicacion")), "%" + filtro.ubicacion().toLowerCase() + "%"));
+        }
+
+        Path<Comparable> campoOrden = campaña.get(orden.getAtributo());
+        Path<Long> id = campaña.get("id");
+        if (valorDespuesDe != null && idDespuesDe != null) {
+            // (campo, id) estrictamente después de la última fila devuelta, en el sentido del orden. Se escribe como
+            // "campo >= v AND (campo > v OR id > idv)" y no como un OR de nivel superior para que el índice pueda
+            // posicionarse directamente en v en lugar de recorrer la tabla.
+            Comparable valor = valorDespuesDe;
+            condiciones.add(ascendente
+                    ? cb.and(cb.greaterThanOrEqualTo(campoOrden, valor), cb.or(cb.greaterThan(campoOrden, valor), cb.greaterThan(id, idDespuesDe)))
+                    : cb.and(cb.lessThanOrEqualTo(campoOrden, valor), cb.or(cb.lessThan(campoOrden, valor), cb.lessThan(id, idDespuesDe))));
+        }
+
+        query.where(condiciones.toArray(new Predicate[0]));
+
+        // Con el estado fijado, ordenar también por él no cambia el resultado, pero permite que H2 lea las filas
+        // ya ordenadas del índice (estado, fecha_inicio, id) en lugar de ordenar todas las campañas de ese estado.
+        List<Expression<?>> criteriosOrden = new ArrayList<>();
+        if (filtro.estado() != null) {
+            criteriosOrden.add(campaña.get("estado"));
+        }
+        criteriosOrden.add(campoOrden);
+        criteriosOrden.add(id);
+        query.orderBy(criteriosOrden.stream()
+                .map(criterio -> ascendente ? cb.asc(criterio) : cb.desc(criterio))
+                .toList());
+
+        return entityManager.createQuery(query).setMaxResults(limite).getResultList();
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.repository;
+
+import org.example.model.DestinatarioEventoSalida;
+import org.example.model.DestinatarioEventoSalidaId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DestinatarioEventoSalidaRepository extends JpaRepository<DestinatarioEventoSalida, DestinatarioEventoSalidaId> {
+
+    // Siguiente página de destinatarios de un evento, paginando por clave (id > despuesDe) sobre la clave primaria.
+    @Query("SELECT d.idUsuario FROM DestinatarioEventoSalida d WHERE d.idEvento = :idEvento AND d.idUsuario > :despuesDe " +
+            "ORDER BY d.idUsuario")
+    List<Long> findIdsUsuarioDespuesDe(@Param("idEvento") Long idEvento, @Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // Borra los destinatarios de un evento ya despachado.
+    @Modifying
+    @Query("DELETE FROM DestinatarioEventoSalida d WHERE d.idEvento = :idEvento")
+    int deleteByIdEvento(@Param("idEvento") Long idEvento);
+}
@@ -0,0 +1,80 @@
+package org.example.repository;
+
+import org.example.model.EventoSalida;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoSalidaRepository extends JpaRepository<EventoSalida, Long> {
+
+    // IDs de eventos pendientes sin reserva vigente, en orden de llegada.
+    @Query("SELECT e.id FROM EventoSalida e WHERE e.procesado = false AND e.fallido = false " +
+            "AND (e.reclamadoHasta IS NULL OR e.reclamadoHasta < :ahora) ORDER BY e.id")
+    List<Long> findIdsPendientes(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+    // Reserva un evento para un trabajador. Devuelve 0 si otro trabajador ya lo tiene reservado o si el evento
+    // agotó sus intentos.
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoSalida e SET e.reclamadoPor = :token, e.reclamadoHasta = :hasta, e.intentos = e.intentos + 1 " +
+            "WHERE e.id = :id AND e.procesado = false AND e.fallido = false AND e.intentos < :intentosMaximos " +
+            "AND (e.reclamadoHasta IS NULL OR e.reclamadoHasta < :ahora)")
+    int reclamar(@Param("id") Long id, @Param("token") String token, @Param("ahora") LocalDateTime ahora,
+                 @Param("hasta") LocalDateTime hasta, @Param("intentosMaximos") int intentosMaximos);
+
+    // Libera una reserva que no llegó a ejecutarse (sin contarla como intento).
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoSalida e SET e.reclamadoPor = null, e.reclamadoHasta = null, e.intentos = e.intentos - 1 " +
+            "WHERE e.id = :id AND e.reclamadoPor = :token")
+    int liberar(@Param("id") Long id, @Param("token") String token);
+
+    // Marca como fallido un evento sin reserva vigente que agotó sus intentos. Devuelve 0 si no es el caso.
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoSalida e SET e.fallido = true, e.reclamadoPor = null, e.reclamadoHasta = null " +
+            "WHERE e.id = :id AND e.procesado = false AND e.fallido = false AND e.intentos >= :intentosMaximos " +
+            "AND (e.reclamadoHasta IS NULL OR e.reclamadoHasta < :ahora)")
+    int marcarFallido(@Param("id") Long id, @Param("intentosMaximos") int intentosMaximos,
+                      @Param("ahora") LocalDateTime ahora);
+
+    // Avanza el cursor solo si la reserva sigue siendo nuestra y nadie más lo movió (compare-and-set).
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoSalida e SET e.ultimoIdUsuario = :nuevo, e.reclamadoHasta = :hasta " +
+            "WHERE e.id = :id AND e.reclamadoPor = :token AND e.ultimoIdUsuario = :anterior")
+    int avanzarCursor(@Param("id") Long id, @Param("token") String token, @Param("anterior") Long anterior,
+                      @Param("nuevo") Long nuevo, @Param("hasta") LocalDateTime hasta);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoSalida e SET e.idPlantilla = :idPlantilla WHERE e.id = :id AND e.reclamadoPor = :token AND e.idPlantilla IS NULL")
+    int asignarPlantilla(@Param("id") Long id, @Param("token") String token, @Param("idPlantilla") Long idPlantilla);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoSalida e SET e.procesado = true, e.fechaProcesado = :fecha, e.reclamadoPor = null, e.reclamadoHasta = null " +
+            "WHERE e.id = :id AND e.reclamadoPor = :token")
+    int marcarProcesado(@Param("id") Long id, @Param("token") String token, @Param("fecha") LocalDateTime fecha);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EventoSalida e WHERE e.procesado = true AND e.fechaProcesado < :limite")
+    int eliminarProcesadosAntesDe(@Param("limite") LocalDateTime limite);
+
+    long countByProcesadoFalseAndFallidoFalse();
+
+    long countByFallidoTrue();
+
+    // Fecha del evento pendiente más antiguo; sirve para medir el retraso del despacho.
+    @Query("SELECT MIN(e.fechaCreacion) FROM EventoSalida e WHERE e.procesado = false AND e.fallido = false")
+    LocalDateTime findFechaCreacionPendienteMasAntigua();
+}
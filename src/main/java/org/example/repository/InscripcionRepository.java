@@ -0,0 +1,51 @@
+package org.example.repository;
+
+import org.example.dto.InscritoDTO;
+import org.example.model.Inscripcion;
+import org.example.model.InscripcionId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InscripcionRepository extends JpaRepository<Inscripcion, InscripcionId> {
+
+    // IDs de los voluntarios inscritos en una campaña.
+    @Query("SELECT i.idVoluntario FROM Inscripcion i WHERE i.idCampaña = :idCampaña ORDER BY i.idVoluntario")
+    List<Long> findIdsVoluntarios(@Param("idCampaña") Long idCampaña);
+
+    // Igual que el anterior, pero paginando por clave (id > despuesDe) para recorrer rosters grandes por lotes.
+    @Query("SELECT i.idVoluntario FROM Inscripcion i WHERE i.idCampaña = :idCampaña AND i.idVoluntario > :despuesDe " +
+           "ORDER BY i.idVoluntario")
+    List<Long> findIdsVoluntariosDespuesDe(@Param("idCampaña") Long idCampaña, @Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // De los voluntarios indicados, IDs de los que ya están inscritos en la campaña.
+    @Query("SELECT i.idVoluntario FROM Inscripcion i WHERE i.idCampaña = :idCampaña AND i.idVoluntario IN :idsVoluntarios")
+    List<Long> findIdsVoluntariosInscritosEntre(@Param("idCampaña") Long idCampaña, @Param("idsVoluntarios") Collection<Long> idsVoluntarios);
+
+    // Datos de contacto de los inscritos de una campaña, paginando por clave (id > despuesDe) para exportarlos por lotes.
+    @Query("SELECT new org.example.dto.InscritoDTO(u.id, u.nombreUsuario, u.nombre, u.apellido, u.email, u.telefono) " +
+           "FROM Inscripcion i JOIN i.voluntario u WHERE i.idCampaña = :idCampaña AND i.idVoluntario > :despuesDe " +
+           "ORDER BY i.idVoluntario")
+    List<InscritoDTO> findInscritosDespuesDe(@Param("idCampaña") Long idCampaña, @Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // De las campañas indicadas, IDs de aquellas en las que está inscrito el voluntario.
+    @Query("SELECT i.idCampaña FROM Inscripcion i WHERE i.idVoluntario = :idVoluntario AND i.idCampaña IN :idsCampañas")
+    List<Long> findIdsCampañas(@Param("idVoluntario") Long idVoluntario, @Param("idsCampañas") Collection<Long> idsCampañas);
+
+    // Anula una inscripción. Devuelve 0 si el voluntario no estaba inscrito.
+    @Modifying
+    @Query("DELETE FROM Inscripcion i WHERE i.idCampaña = :idCampaña AND i.idVoluntario = :idVoluntario")
+    int anular(@Param("idCampaña") Long idCampaña, @Param("idVoluntario") Long idVoluntario);
+
+    // Borra todas las inscripciones de una campaña (antes de eliminarla).
+    @Modifying
+    @Query("DELETE FROM Inscripcion i WHERE i.idCampaña = :idCampaña")
+    int deleteByIdCampaña(@Param("idCampaña") Long idCampaña);
+}
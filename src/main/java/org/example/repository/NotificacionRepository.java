@@ -1,13 +1,69 @@
 package org.example.repository;
 
 import org.example.model.Notificacion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface NotificacionRepository extends JpaRepository<Notificacion, Long> {
     // Métod para encontrar notificaciones por ID de usuario, ordenadas por fecha de creación descendente
     List<Notificacion> findByIdUsuarioOrderByFechaCreacionDesc(Long idUsuario);
+
+    // Primera página de la bandeja. Ambas consultas recorren el índice (id_usuario, fecha_creacion DESC, id DESC).
+    List<Notificacion> findByIdUsuarioOrderByFechaCreacionDescIdDesc(Long idUsuario, Pageable pageable);
+
+    // Páginas siguientes: notificaciones estrictamente anteriores a la posición (fecha, id) del cursor.
+    @Query("SELECT n FROM Notificacion n WHERE n.idUsuario = :idUsuario " +
+            "AND (n.fechaCreacion < :fecha OR (n.fechaCreacion = :fecha AND n.id < :id)) " +
+            "ORDER BY n.fechaCreacion DESC, n.id DESC")
+    List<Notificacion> findPaginaAnteriorA(@Param("idUsuario") Long idUsuario, @Param("fecha") LocalDateTime fecha,
+                                           @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT MAX(n.id) FROM Notificacion n WHERE n.idUsuario = :idUsuario")
+    Long findUltimoIdByIdUsuario(@Param("idUsuario") Long idUsuario);
+
+    // Notificaciones posteriores a un ID dado, en orden de creación (reanudación del stream SSE).
+    List<Notificacion> findByIdUsuarioAndIdGreaterThanOrderByIdAsc(Long idUsuario, Long id, Pageable pageable);
+
+    // Igual, sin las indicadas (las que el stream ya envió por encima de su cursor).
+    @Query("SELECT n FROM Notificacion n WHERE n.idUsuario = :idUsuario AND n.id > :id AND n.id NOT IN :excluidas " +
+            "ORDER BY n.id")
+    List<Notificacion> findPosterioresAExcluyendo(@Param("idUsuario") Long idUsuario, @Param("id") Long id,
+                                                  @Param("excluidas") Collection<Long> excluidas, Pageable pageable);
+
+    @Query("SELECT n.fechaCreacion FROM Notificacion n WHERE n.id = :id AND n.idUsuario = :idUsuario")
+    LocalDateTime findFechaCreacion(@Param("idUsuario") Long idUsuario, @Param("id") Long id);
+
+    // IDs de las notificaciones creadas antes de una fecha, de la más reciente a la más antigua (recorre el índice).
+    @Query("SELECT n.id FROM Notificacion n WHERE n.idUsuario = :idUsuario AND n.fechaCreacion < :fecha " +
+            "ORDER BY n.fechaCreacion DESC, n.id DESC")
+    List<Long> findIdsAnterioresA(@Param("idUsuario") Long idUsuario, @Param("fecha") LocalDateTime fecha,
+                                  Pageable pageable);
+
+    // Marca como leída solo si aún no lo estaba; devuelve 1 si cambió el estado.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notificacion n SET n.leida = true WHERE n.id = :id AND n.leida = false")
+    int marcarLeida(@Param("id") Long id);
+
+    // Marcado masivo: todas las no leídas del usuario hasta el ID indicado (inclusive), en una sola sentencia.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notificacion n SET n.leida = true WHERE n.idUsuario = :idUsuario AND n.leida = false AND n.id <= :hastaId")
+    int marcarLeidasHasta(@Param("idUsuario") Long idUsuario, @Param("hastaId") Long hastaId);
+
+    // Marcado masivo de una lista de IDs; la condición sobre id_usuario impide tocar notificaciones ajenas.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notificacion n SET n.leida = true WHERE n.idUsuario = :idUsuario AND n.leida = false AND n.id IN :ids")
+    int marcarLeidas(@Param("idUsuario") Long idUsuario, @Param("ids") Collection<Long> ids);
+
+    long countByIdIn(Collection<Long> ids);
+
+    long countByIdInAndIdUsuarioNot(Collection<Long> ids, Long idUsuario);
 }
\ No newline at end of file
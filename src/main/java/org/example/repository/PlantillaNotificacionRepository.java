@@ -0,0 +1,9 @@
+package org.example.repository;
+
+import org.example.model.PlantillaNotificacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PlantillaNotificacionRepository extends JpaRepository<PlantillaNotificacion, Long> {
+}
@@ -0,0 +1,38 @@
+package org.example.repository;
+
+import org.example.model.RegistroActividad;
+import org.example.model.TipoActividad;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RegistroActividadRepository extends JpaRepository<RegistroActividad, Long> {
+
+    // Filas aún no sumadas a los agregados, en orden de llegada.
+    @Query("SELECT r FROM RegistroActividad r WHERE r.agregado = false ORDER BY r.id")
+    List<RegistroActividad> findPendientes(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE RegistroActividad r SET r.agregado = true WHERE r.id IN :ids")
+    int marcarAgregados(@Param("ids") Collection<Long> ids);
+
+    // Usuarios distintos con actividad de esos tipos en [desde, hasta); recorre solo ese tramo del índice por fecha.
+    @Query("SELECT COUNT(DISTINCT r.idUsuario) FROM RegistroActividad r " +
+           "WHERE r.fecha >= :desde AND r.fecha < :hasta AND r.tipo IN :tipos")
+    long contarUsuariosDistintos(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta,
+                                 @Param("tipos") Collection<TipoActividad> tipos);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RegistroActividad r WHERE r.agregado = true AND r.fecha < :limite")
+    int eliminarAgregadosAntesDe(@Param("limite") LocalDateTime limite);
+}
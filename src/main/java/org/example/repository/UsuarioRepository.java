@@ -1,14 +1,23 @@
 package org.example.repository;
 
+import org.example.dto.RecuentoRolDTO;
+import org.example.dto.UsuarioResumenDTO;
+import org.example.dto.VoluntarioIdentificadoDTO;
 import org.example.model.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+public interface UsuarioRepository extends JpaRepository<Usuario, Long>, UsuarioRepositoryCustom {
 
     // Encuentra un usuario por su nombre de usuario.
     Optional<Usuario> findByNombreUsuario(String nombreUsuario);
@@ -16,6 +25,35 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     // Encuentra una lista de usuarios por su rol (ej. "ADMIN", "VOLUNTARIO").
     List<Usuario> findByRol(String rol);
 
+    // Devuelve solo los IDs de los usuarios de un rol, paginando por clave (id > despuesDe).
+    // Se usa en la difusión masiva de notificaciones para no cargar entidades completas.
+    @Query("SELECT u.id FROM Usuario u WHERE u.rol = :rol AND u.id > :despuesDe ORDER BY u.id")
+    List<Long> findIdsByRolDespuesDe(@Param("rol") String rol, @Param("despuesDe") Long despuesDe, Pageable pageable);
+
+    // Versión de token vigente de un usuario activo; vacío si el usuario no existe o está desactivado.
+    @Query("SELECT u.versionToken FROM Usuario u WHERE u.id = :id AND u.activo = true")
+    Optional<Integer> findVersionTokenActivo(@Param("id") Long id);
+
+    // Sustituye el hash de la contraseña (recálculo con otro coste de BCrypt; la contraseña no cambia).
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.contrasena = :contrasena WHERE u.nombreUsuario = :nombreUsuario")
+    int actualizarContrasena(@Param("nombreUsuario") String nombreUsuario, @Param("contrasena") String contrasena);
+
+    // Nombres de usuario que ya usan el nombre o el email dados (como mucho dos filas); una sola consulta para el registro.
+    @Query("SELECT u.nombreUsuario FROM Usuario u WHERE u.nombreUsuario = :nombreUsuario OR u.email = :email")
+    List<String> findNombresUsuarioConNombreOEmail(@Param("nombreUsuario") String nombreUsuario, @Param("email") String email);
+
+    // Voluntarios con alguno de los nombres de usuario dados (importación masiva de inscripciones, por lotes).
+    @Query("SELECT new org.example.dto.VoluntarioIdentificadoDTO(u.id, u.nombreUsuario) FROM Usuario u " +
+           "WHERE u.rol = 'VOLUNTARIO' AND u.nombreUsuario IN :nombresUsuario")
+    List<VoluntarioIdentificadoDTO> findVoluntariosPorNombreUsuario(@Param("nombresUsuario") Collection<String> nombresUsuario);
+
+    // Igual que el anterior, por email.
+    @Query("SELECT new org.example.dto.VoluntarioIdentificadoDTO(u.id, u.email) FROM Usuario u " +
+           "WHERE u.rol = 'VOLUNTARIO' AND u.email IN :emails")
+    List<VoluntarioIdentificadoDTO> findVoluntariosPorEmail(@Param("emails") Collection<String> emails);
+
     // Encuentra un usuario por su dirección de email.
     Optional<Usuario> findByEmail(String email);
 
@@ -29,7 +67,12 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     // Utilizado comúnmente en el proceso de registro para evitar duplicados.
     boolean existsByEmail(String email);
 
-    // Cuenta el número de usuarios que tienen un rol específico.
-    // Este métod es crucial para tus reportes, por ejemplo, para contar el total de voluntarios.
-    long countByRol(String rol); // Esta es la función que te faltaba y que ReportesService buscaba
-}
\ No newline at end of file
+    // Usuarios por rol en una sola pasada (el total de usuarios es la suma).
+    @Query("SELECT new org.example.dto.RecuentoRolDTO(u.rol, COUNT(u)) FROM Usuario u GROUP BY u.rol")
+    List<RecuentoRolDTO> contarPorRol();
+
+    // Página de la exportación de usuarios (paginación por clave sobre la clave primaria).
+    @Query("SELECT new org.example.dto.UsuarioResumenDTO(u.id, u.nombreUsuario, u.nombre, u.apellido, u.email, " +
+           "u.telefono, u.rol, u.calificacion, u.activo) FROM Usuario u WHERE u.id > :despuesDe ORDER BY u.id")
+    List<UsuarioResumenDTO> findExportacionDespuesDe(@Param("despuesDe") Long despuesDe, Pageable pageable);
+}
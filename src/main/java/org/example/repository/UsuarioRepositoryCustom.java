@@ -0,0 +1,69 @@
+package org.example.repository;
+
+import org.example.dto.UsuarioResumenDTO;
+
+import java.util.List;
+
+/**
+ * Consultas de usuarios con filtros y orden variables para el listado de administración.
+ */
+public interface UsuarioRepositoryCustom {
+
+    /**
+     * Campos por los que se puede ordenar el listado, cada uno en un único sentido (el de su índice): nombre y
+     * apellido ascendentes, calificación de mayor a menor. El ID se usa siempre como desempate, en el mismo sentido.
+     */
+    enum Orden {
+        NOMBRE("nombre", true),
+        APELLIDO("apellido", true),
+        CALIFICACION("calificacion", false);
+
+        private final String atributo;
+        private final boolean ascendente;
+
+        Orden(String atributo, boolean ascendente) {
+            this.atributo = atributo;
+            this.ascendente = ascendente;
+        }
+
+        public String getAtributo() {
+            return atributo;
+        }
+
+        public boolean isAscendente() {
+            return ascendente;
+        }
+    }
+
+    /**
+     * Campos en los que se puede buscar por prefijo; cada uno tiene su columna en minúsculas indexada.
+     */
+    enum CampoBusqueda {
+        NOMBRE_USUARIO("nombreUsuarioBusqueda"),
+        EMAIL("emailBusqueda"),
+        NOMBRE("nombreBusqueda");
+
+        private final String atributo;
+
+        CampoBusqueda(String atributo) {
+            this.atributo = atributo;
+        }
+
+        public String getAtributo() {
+            return atributo;
+        }
+    }
+
+    /**
+     * Filtros opcionales (null = sin filtrar). 'busqueda' es un prefijo de 'campo', sin distinguir mayúsculas.
+     */
+    record Filtro(String rol, Boolean activo, CampoBusqueda campo, String busqueda) {
+    }
+
+    /**
+     * Devuelve una página de usuarios por paginación por clave.
+     * @param valorDespuesDe Valor del campo de orden del último usuario de la página anterior (null en la primera).
+     * @param idDespuesDe ID de ese mismo usuario, para desempatar.
+     */
+    List<UsuarioResumenDTO> buscarPagina(Filtro filtro, Orden orden, Comparable<?> valorDespuesDe, Long idDespuesDe, int limite);
+}
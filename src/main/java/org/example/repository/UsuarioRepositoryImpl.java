@@ -0,0 +1,78 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.dto.UsuarioResumenDTO;
+import org.example.model.Usuario;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implementación de {@link UsuarioRepositoryCustom} con la API Criteria: proyecta directamente al DTO,
+ * sin cargar entidades (ni el hash de la contraseña).
+ */
+public class UsuarioRepositoryImpl implements UsuarioRepositoryCustom {
+
+    // Mayor que cualquier carácter: [prefijo, prefijo + MAXIMO) son exactamente los valores que empiezan por el prefijo
+    private static final char MAXIMO = Character.MAX_VALUE;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<UsuarioResumenDTO> buscarPagina(Filtro filtro, Orden orden, Comparable<?> valorDespuesDe, Long idDespuesDe, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UsuarioResumenDTO> query = cb.createQuery(UsuarioResumenDTO.class);
+        Root<Usuario> usuario = query.from(Usuario.class);
+
+        query.select(cb.construct(UsuarioResumenDTO.class,
+                usuario.get("id"),
+                usuario.get("nombreUsuario"),
+                usuario.get("nombre"),
+                usuario.get("apellido"),
+                usuario.get("email"),
+                usuario.get("telefono"),
+                usuario.get("rol"),
+                usuario.get("calificacion"),
+                usuario.get("activo")));
+
+        List<Predicate> condiciones = new ArrayList<>();
+        if (filtro.rol() != null) {
+            condiciones.add(cb.equal(usuario.get("rol"), filtro.rol()));
+        }
+        if (filtro.activo() != null) {
+            condiciones.add(cb.equal(usuario.get("activo"), filtro.activo()));
+        }
+        if (filtro.busqueda() != null && !filtro.busqueda().isBlank()) {
+            // Rango en lugar de LIKE: con un parámetro, H2 solo usa el índice para comparaciones de rango
+            String prefijo = filtro.busqueda().strip().toLowerCase(Locale.ROOT);
+            Path<String> campo = usuario.get(filtro.campo().getAtributo());
+            condiciones.add(cb.greaterThanOrEqualTo(campo, prefijo));
+            condiciones.add(cb.lessThan(campo, prefijo + MAXIMO));
+        }
+
+        Path<Comparable> campoOrden = usuario.get(orden.getAtributo());
+        Path<Long> id = usuario.get("id");
+        boolean ascendente = orden.isAscendente();
+        if (valorDespuesDe != null && idDespuesDe != null) {
+            // Misma forma que en CampañaRepositoryImpl, para que el índice (campo, id) se posicione en el valor
+            Comparable valor = valorDespuesDe;
+            condiciones.add(ascendente
+                    ? cb.and(cb.greaterThanOrEqualTo(campoOrden, valor), cb.or(cb.greaterThan(campoOrden, valor), cb.greaterThan(id, idDespuesDe)))
+                    : cb.and(cb.lessThanOrEqualTo(campoOrden, valor), cb.or(cb.lessThan(campoOrden, valor), cb.lessThan(id, idDespuesDe))));
+        }
+
+        query.where(condiciones.toArray(new Predicate[0]));
+        query.orderBy(ascendente ? cb.asc(campoOrden) : cb.desc(campoOrden), ascendente ? cb.asc(id) : cb.desc(id));
+
+        return entityManager.createQuery(query).setMaxResults(limite).getResultList();
+    }
+}
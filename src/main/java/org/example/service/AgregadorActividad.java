@@ -0,0 +1,132 @@
+package org.example.service;
+
+import org.example.model.ActividadDiaria;
+import org.example.model.ActividadDiariaId;
+import org.example.model.RegistroActividad;
+import org.example.model.TipoActividad;
+import org.example.repository.RegistroActividadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Resume el registro de actividad en la tabla actividad_diaria.
+ * Cada lote de filas pendientes se suma a sus agregados y se marca como agregado en la misma transacción,
+ * de modo que ninguna fila se cuenta dos veces; las filas de transacciones aún abiertas no son visibles y
+ * entran en un ciclo posterior. Los agregados del día en curso van por detrás como mucho un intervalo. */
+@Service
+public class AgregadorActividad {
+
+    private static final Logger log = LoggerFactory.getLogger(AgregadorActividad.class);
+
+    private static final String SUMAR_AGREGADO =
+            "MERGE INTO actividad_diaria a " +
+            "USING (VALUES (CAST(? AS VARCHAR), CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS BIGINT))) " +
+            "AS s(tipo, id_campana, dia, total) " +
+            "ON a.tipo = s.tipo AND a.id_campana = s.id_campana AND a.dia = s.dia " +
+            "WHEN MATCHED THEN UPDATE SET total = a.total + s.total " +
+            "WHEN NOT MATCHED THEN INSERT (tipo, id_campana, dia, total) VALUES (s.tipo, s.id_campana, s.dia, s.total)";
+
+    // Los voluntarios distintos de un día no se pueden sumar por lotes: se recalculan y se sobrescriben
+    private static final String FIJAR_AGREGADO =
+            "MERGE INTO actividad_diaria (tipo, id_campana, dia, total) KEY (tipo, id_campana, dia) VALUES (?, ?, ?, ?)";
+
+    private static final Set<TipoActividad> TIPOS_VOLUNTARIO = Set.of(TipoActividad.INSCRIPCION, TipoActividad.ANULACION);
+
+    private final RegistroActividadRepository registroActividadRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${analitica.agregacion.tamano-lote:5000}")
+    private int tamanoLote;
+
+    @Value("${analitica.agregacion.lotes-por-ciclo:20}")
+    private int lotesPorCiclo;
+
+    @Value("${analitica.registro.retencion-dias:30}")
+    private long retencionDias;
+
+    public AgregadorActividad(RegistroActividadRepository registroActividadRepository, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.registroActividadRepository = registroActividadRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Con mucho atraso, cada ciclo agrega como mucho 'lotesPorCiclo' lotes y deja el resto para el siguiente,
+    // para no ocupar durante minutos un hilo del planificador que comparten las demás tareas programadas
+    @Scheduled(fixedDelayString = "${analitica.agregacion.intervalo-ms:60000}")
+    public void agregar() {
+        Integer procesadas;
+        int lotes = 0;
+        do {
+            procesadas = transactionTemplate.execute(status -> agregarLote());
+            lotes++;
+        } while (procesadas != null && procesadas == tamanoLote && lotes < lotesPorCiclo);
+        if (lotes == lotesPorCiclo && procesadas != null && procesadas == tamanoLote) {
+            log.info("Registro de actividad con atraso: se han agregado {} filas y el resto queda para el siguiente ciclo",
+                    (long) lotes * tamanoLote);
+        }
+    }
+
+    private int agregarLote() {
+        List<RegistroActividad> lote = registroActividadRepository.findPendientes(PageRequest.of(0, tamanoLote));
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        Map<ActividadDiariaId, Long> incrementos = new HashMap<>();
+        Set<LocalDate> diasConVoluntarios = new TreeSet<>();
+        List<Long> ids = new ArrayList<>(lote.size());
+        for (RegistroActividad registro : lote) {
+            LocalDate dia = registro.getFecha().toLocalDate();
+            incrementos.merge(new ActividadDiariaId(registro.getTipo(), ActividadDiaria.GLOBAL, dia), 1L, Long::sum);
+            if (TIPOS_VOLUNTARIO.contains(registro.getTipo())) {
+                incrementos.merge(new ActividadDiariaId(registro.getTipo(), registro.getIdCampaña(), dia), 1L, Long::sum);
+                diasConVoluntarios.add(dia);
+            }
+            ids.add(registro.getId());
+        }
+
+        jdbcTemplate.batchUpdate(SUMAR_AGREGADO, new ArrayList<>(incrementos.entrySet()), incrementos.size(),
+                (ps, incremento) -> {
+                    ps.setString(1, incremento.getKey().getTipo().name());
+                    ps.setLong(2, incremento.getKey().getIdCampaña());
+                    ps.setDate(3, Date.valueOf(incremento.getKey().getDia()));
+                    ps.setLong(4, incremento.getValue());
+                });
+        for (LocalDate dia : diasConVoluntarios) {
+            long activos = registroActividadRepository.contarUsuariosDistintos(dia.atStartOfDay(),
+                    dia.plusDays(1).atStartOfDay(), TIPOS_VOLUNTARIO);
+            jdbcTemplate.update(FIJAR_AGREGADO, TipoActividad.VOLUNTARIO_ACTIVO.name(), ActividadDiaria.GLOBAL,
+                    Date.valueOf(dia), activos);
+        }
+        registroActividadRepository.marcarAgregados(ids);
+        return lote.size();
+    }
+
+    // Los agregados ya contienen el historial; el registro solo hace falta para recalcular los días recientes
+    @Scheduled(cron = "${analitica.registro.limpieza-cron:0 30 3 * * *}")
+    public void eliminarAgregados() {
+        int eliminados = registroActividadRepository.eliminarAgregadosAntesDe(LocalDateTime.now().minusDays(retencionDias));
+        if (eliminados > 0) {
+            log.info("Eliminadas {} filas ya agregadas del registro de actividad", eliminados);
+        }
+    }
+}
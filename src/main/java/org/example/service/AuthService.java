@@ -1,27 +1,39 @@
 package org.example.service;
 
 import org.example.dto.RegistroRequest;
+import org.example.event.UsuarioRegistrado;
 import org.example.model.Usuario;
 import org.example.repository.UsuarioRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder; // Importa PasswordEncoder
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Service
 public class AuthService {
 
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder; // Inyección de PasswordEncoder
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AuthService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public AuthService(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional // El registro de actividad se escribe en la misma transacción que el usuario
     public Usuario register(RegistroRequest request) {
-        if (usuarioRepository.findByNombreUsuario(request.getNombreUsuario()).isPresent()) { // Error: private access
+        // Una sola consulta comprueba el nombre de usuario y el email; si coincide una fila con otro nombre, es por el email
+        List<String> existentes = usuarioRepository.findNombresUsuarioConNombreOEmail(request.getNombreUsuario(), request.getEmail());
+        if (existentes.contains(request.getNombreUsuario())) {
             throw new RuntimeException("El nombre de usuario ya existe.");
         }
-        if (usuarioRepository.findByEmail(request.getEmail()).isPresent()) { // Error: private access
+        if (!existentes.isEmpty()) {
             throw new RuntimeException("El email ya está registrado.");
         }
 
@@ -35,7 +47,15 @@ public class AuthService {
         nuevoUsuario.setRol("VOLUNTARIO"); // Error: cannot resolve symbol 'rol'
         nuevoUsuario.setActivo(true);
 
-        return usuarioRepository.save(nuevoUsuario);
+        Usuario registrado;
+        try {
+            registrado = usuarioRepository.save(nuevoUsuario);
+        } catch (DataIntegrityViolationException e) {
+            // Otro registro simultáneo ganó la carrera: lo impiden las restricciones UNIQUE de la tabla
+            throw new RuntimeException("El nombre de usuario o el email ya están registrados.");
+        }
+        eventPublisher.publishEvent(new UsuarioRegistrado(registrado.getId(), registrado.getRol()));
+        return registrado;
     }
 
     // Métod de autenticación
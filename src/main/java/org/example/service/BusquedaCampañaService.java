@@ -0,0 +1,506 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.es.SpanishAnalyzer;
+import org.apache.lucene.analysis.es.SpanishLightStemFilter;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LatLonDocValuesField;
+import org.apache.lucene.document.LatLonPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.example.dto.CampañaCercanaDTO;
+import org.example.dto.CampañaExportacionDTO;
+import org.example.dto.CampañaResumenDTO;
+import org.example.dto.SugerenciaCampañaDTO;
+import org.example.event.CampañaActualizada;
+import org.example.event.CampañaCreada;
+import org.example.event.CampañaEliminada;
+import org.example.model.Campaña;
+import org.example.model.EstadoCampaña;
+import org.example.repository.CampañaRepository;
+import org.example.util.CoordenadasUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Búsqueda de texto completo sobre el nombre, la descripción y la ubicación de las campañas, y de campañas activas
+ * cercanas a un punto, con un índice Lucene en disco (las posiciones van en un árbol BKD, sin recorrer el índice).
+ * El texto se analiza en español sin acentos ni mayúsculas ("Campaña" y "campana" son el mismo término, con las
+ * formas en plural reducidas a su raíz) y los resultados se ordenan por relevancia (BM25), con más peso para el
+ * nombre y la ubicación que para la descripción.
+ * El índice se actualiza tras el commit de cada alta, modificación o borrado; los cambios se ven en la siguiente
+ * búsqueda y se confirman en disco periódicamente. Si al arrancar no coincide con la base de datos (primer
+ * arranque, cierre brusco, cambios hechos fuera de la API) se reconstruye en segundo plano. */
+@Service
+public class BusquedaCampañaService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaCampañaService.class);
+
+    private static final String CAMPO_ID = "id";
+    private static final String CAMPO_NOMBRE = "nombre";
+    private static final String CAMPO_DESCRIPCION = "descripcion";
+    private static final String CAMPO_UBICACION = "ubicacion";
+    private static final String CAMPO_PREFIJOS = "nombre_prefijos";
+    // Solo las campañas activas tienen posición en el índice: son las únicas que se buscan por cercanía
+    private static final String CAMPO_POSICION_ACTIVA = "posicion_activa";
+    private static final String CAMPO_GENERACION = "generacion";
+
+    // Se incrementa al cambiar los campos indexados: un índice de otra versión se reconstruye al arrancar
+    private static final String VERSION_INDICE = "1";
+    private static final String CLAVE_VERSION = "version";
+
+    private static final Map<String, Float> PESOS = Map.of(CAMPO_NOMBRE, 3f, CAMPO_UBICACION, 2f, CAMPO_DESCRIPCION, 1f);
+
+    // Los prefijos del nombre se indexan con estas longitudes; los términos más largos se recortan al buscar
+    private static final int LONGITUD_PREFIJO_MINIMA = 2;
+    private static final int LONGITUD_PREFIJO_MAXIMA = 20;
+
+    // Acota el número de cláusulas de la consulta (Lucene rechaza más de 1024)
+    private static final int TERMINOS_MAXIMOS = 20;
+
+    private static final int TAMANO_RESULTADOS_MAXIMO = 100;
+    private static final int TAMANO_SUGERENCIAS_MAXIMO = 20;
+    private static final double RADIO_MAXIMO_KM = 200;
+    private static final double RADIO_INICIAL_KM = 5;
+
+    private final CampañaRepository campañaRepository;
+    private final Executor executor;
+    private final Analyzer analizadorTexto = new AnalizadorEspañol(Modo.TEXTO);
+    private final Analyzer analizadorPrefijos = new AnalizadorEspañol(Modo.PREFIJOS);
+    private final Analyzer analizadorConsultaPrefijos = new AnalizadorEspañol(Modo.CONSULTA_PREFIJOS);
+    private final Directory directorio;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    // Serializa la escritura de una campaña con la lectura de su fila, para que un dato leído antes de un cambio
+    // no sobrescriba en el índice al que ya ha dejado ese cambio
+    private final Object bloqueoEscritura = new Object();
+
+    // Marca los documentos escritos desde que empezó la última reconstrucción
+    private volatile String generacion = "0";
+    // Campañas creadas, modificadas o borradas durante la reconstrucción en curso (null si no hay ninguna)
+    private volatile Set<Long> cambiadasDuranteReconstruccion;
+
+    @Value("${busqueda.indice.tamano-lote:1000}")
+    private int tamanoLote;
+
+    public BusquedaCampañaService(CampañaRepository campañaRepository,
+                                  @Qualifier("indiceBusquedaExecutor") Executor executor,
+                                  @Value("${busqueda.indice.directorio:./data/indice-campanas}") String rutaIndice) {
+        this.campañaRepository = campañaRepository;
+        this.executor = executor;
+        try {
+            this.directorio = FSDirectory.open(Path.of(rutaIndice));
+            IndexWriterConfig config = new IndexWriterConfig(
+                    new PerFieldAnalyzerWrapper(analizadorTexto, Map.of(CAMPO_PREFIJOS, analizadorPrefijos)));
+            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            this.writer = new IndexWriter(directorio, config);
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el índice de búsqueda de campañas en " + rutaIndice, e);
+        }
+    }
+
+    /**
+     * Campañas que contienen todos los términos de 'texto' (en cualquiera de los campos), de más a menos relevante.
+     * @param tamano Número máximo de resultados (como mucho 100).
+     * @throws IllegalArgumentException si el texto está vacío.
+     */
+    public List<CampañaResumenDTO> buscar(String texto, int tamano) throws IOException {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío.");
+        }
+        Set<String> terminos = analizar(analizadorTexto, CAMPO_NOMBRE, texto);
+        if (terminos.isEmpty()) {
+            return List.of(); // Solo palabras vacías ("de", "la"...)
+        }
+
+        BooleanQuery.Builder consulta = new BooleanQuery.Builder();
+        for (String termino : terminos) {
+            BooleanQuery.Builder campos = new BooleanQuery.Builder();
+            PESOS.forEach((campo, peso) ->
+                    campos.add(new BoostQuery(new TermQuery(new Term(campo, termino)), peso), BooleanClause.Occur.SHOULD));
+            consulta.add(campos.build(), BooleanClause.Occur.MUST);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            StoredFields documentos = searcher.storedFields();
+            for (ScoreDoc resultado : searcher.search(consulta.build(), limitar(tamano, TAMANO_RESULTADOS_MAXIMO)).scoreDocs) {
+                ids.add(Long.valueOf(documentos.document(resultado.doc).get(CAMPO_ID)));
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // La base de datos devuelve las campañas sin orden: se recolocan en el orden de relevancia
+        Map<Long, Integer> posiciones = new LinkedHashMap<>();
+        ids.forEach(id -> posiciones.put(id, posiciones.size()));
+        List<CampañaResumenDTO> campanas = new ArrayList<>(campañaRepository.findResumenPorIds(ids));
+        campanas.sort(Comparator.comparing(campana -> posiciones.get(campana.getId())));
+        return campanas;
+    }
+
+    /**
+     * Autocompletado: campañas cuyo nombre tiene palabras que empiezan por cada uno de los términos de 'texto'.
+     * Los términos de menos de dos caracteres no se tienen en cuenta.
+     * @param tamano Número máximo de sugerencias (como mucho 20).
+     */
+    public List<SugerenciaCampañaDTO> sugerir(String texto, int tamano) throws IOException {
+        if (texto == null) {
+            return List.of();
+        }
+        BooleanQuery.Builder consulta = new BooleanQuery.Builder();
+        boolean hayTerminos = false;
+        for (String termino : analizar(analizadorConsultaPrefijos, CAMPO_PREFIJOS, texto)) {
+            if (termino.length() >= LONGITUD_PREFIJO_MINIMA) {
+                String prefijo = termino.length() > LONGITUD_PREFIJO_MAXIMA ? termino.substring(0, LONGITUD_PREFIJO_MAXIMA) : termino;
+                consulta.add(new TermQuery(new Term(CAMPO_PREFIJOS, prefijo)), BooleanClause.Occur.MUST);
+                hayTerminos = true;
+            }
+        }
+        if (!hayTerminos) {
+            return List.of();
+        }
+
+        List<SugerenciaCampañaDTO> sugerencias = new ArrayList<>();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            StoredFields documentos = searcher.storedFields();
+            for (ScoreDoc resultado : searcher.search(consulta.build(), limitar(tamano, TAMANO_SUGERENCIAS_MAXIMO)).scoreDocs) {
+                Document documento = documentos.document(resultado.doc);
+                sugerencias.add(new SugerenciaCampañaDTO(Long.valueOf(documento.get(CAMPO_ID)), documento.get(CAMPO_NOMBRE)));
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+        return sugerencias;
+    }
+
+    /**
+     * Campañas activas con posición a menos de 'radioKm' del punto, de la más cercana a la más lejana.
+     * El radio se recorre de forma creciente (5 km, 10 km...) hasta reunir 'tamano' campañas: cada consulta solo
+     * ordena las campañas dentro del radio actual, así que el coste no depende de lo grande que sea 'radioKm'.
+     * @param tamano Número máximo de campañas (como mucho 100).
+     * @throws IllegalArgumentException si las coordenadas no son válidas o el radio no está entre 0 y 200 km.
+     */
+    public List<CampañaCercanaDTO> cercanas(double latitud, double longitud, double radioKm, int tamano) throws IOException {
+        CoordenadasUtil.validar(latitud, longitud);
+        if (!(radioKm > 0 && radioKm <= RADIO_MAXIMO_KM)) {
+            throw new IllegalArgumentException("El radio debe ser mayor que 0 y de como mucho " + RADIO_MAXIMO_KM + " km.");
+        }
+        int limite = limitar(tamano, TAMANO_RESULTADOS_MAXIMO);
+        Sort porDistancia = new Sort(LatLonDocValuesField.newDistanceSort(CAMPO_POSICION_ACTIVA, latitud, longitud));
+
+        Map<Long, Double> distanciasKm = new LinkedHashMap<>();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            double radioActualKm = Math.min(RADIO_INICIAL_KM, radioKm);
+            Query dentroDelRadio = LatLonPoint.newDistanceQuery(CAMPO_POSICION_ACTIVA, latitud, longitud, radioActualKm * 1000);
+            ScoreDoc[] resultados = searcher.search(dentroDelRadio, limite, porDistancia).scoreDocs;
+            while (resultados.length < limite && radioActualKm < radioKm) {
+                radioActualKm = Math.min(radioActualKm * 2, radioKm);
+                dentroDelRadio = LatLonPoint.newDistanceQuery(CAMPO_POSICION_ACTIVA, latitud, longitud, radioActualKm * 1000);
+                resultados = searcher.search(dentroDelRadio, limite, porDistancia).scoreDocs;
+            }
+            StoredFields documentos = searcher.storedFields();
+            for (ScoreDoc resultado : resultados) {
+                double metros = (Double) ((FieldDoc) resultado).fields[0];
+                distanciasKm.put(Long.valueOf(documentos.document(resultado.doc).get(CAMPO_ID)), metros / 1000);
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+        if (distanciasKm.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, CampañaResumenDTO> campanas = new HashMap<>();
+        campañaRepository.findResumenPorIds(distanciasKm.keySet()).forEach(campana -> campanas.put(campana.getId(), campana));
+        List<CampañaCercanaDTO> cercanas = new ArrayList<>();
+        distanciasKm.forEach((id, distanciaKm) -> {
+            CampañaResumenDTO campana = campanas.get(id);
+            if (campana != null) { // Borrada entre la búsqueda y la consulta
+                cercanas.add(new CampañaCercanaDTO(campana, distanciaKm));
+            }
+        });
+        return cercanas;
+    }
+
+    // Los cambios se aplican después del commit: una operación revertida no llega al índice
+
+    @TransactionalEventListener
+    public void onCampañaCreada(CampañaCreada evento) {
+        indexar(evento.idCampaña());
+    }
+
+    @TransactionalEventListener
+    public void onCampañaActualizada(CampañaActualizada evento) {
+        indexar(evento.idCampaña());
+    }
+
+    @TransactionalEventListener
+    public void onCampañaEliminada(CampañaEliminada evento) {
+        anotarCambio(evento.idCampaña());
+        synchronized (bloqueoEscritura) {
+            try {
+                writer.deleteDocuments(new Term(CAMPO_ID, evento.idCampaña().toString()));
+                searcherManager.maybeRefresh();
+            } catch (IOException e) {
+                log.error("No se pudo quitar la campaña {} del índice de búsqueda", evento.idCampaña(), e);
+            }
+        }
+    }
+
+    private void indexar(Long idCampaña) {
+        anotarCambio(idCampaña);
+        synchronized (bloqueoEscritura) {
+            // Tras un alta o modificación la campaña sigue en el contexto de persistencia de la transacción recién
+            // confirmada: no hay consulta
+            Campaña campaña = campañaRepository.findById(idCampaña).orElse(null);
+            try {
+                if (campaña == null) {
+                    writer.deleteDocuments(new Term(CAMPO_ID, idCampaña.toString()));
+                } else {
+                    writer.updateDocument(new Term(CAMPO_ID, idCampaña.toString()), documento(idCampaña,
+                            campaña.getNombre(), campaña.getDescripcion(), campaña.getUbicacion(), campaña.getEstado(),
+                            campaña.getLatitud(), campaña.getLongitud()));
+                }
+                searcherManager.maybeRefresh();
+            } catch (IOException e) {
+                log.error("No se pudo actualizar la campaña {} en el índice de búsqueda", idCampaña, e);
+            }
+        }
+    }
+
+    private void anotarCambio(Long idCampaña) {
+        Set<Long> cambiadas = cambiadasDuranteReconstruccion;
+        if (cambiadas != null) {
+            cambiadas.add(idCampaña);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${busqueda.indice.commit-ms:10000}")
+    public void confirmar() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void comprobarIndice() {
+        executor.execute(() -> {
+            try {
+                long enBaseDeDatos = campañaRepository.count();
+                long enIndice = writer.getDocStats().numDocs;
+                String version = null;
+                for (Map.Entry<String, String> dato : writer.getLiveCommitData()) {
+                    if (CLAVE_VERSION.equals(dato.getKey())) {
+                        version = dato.getValue();
+                    }
+                }
+                if (!VERSION_INDICE.equals(version)) {
+                    log.info("El índice de búsqueda es de la versión {} y la actual es {}: se reconstruye", version, VERSION_INDICE);
+                    reconstruir();
+                } else if (enIndice != enBaseDeDatos) {
+                    log.info("El índice de búsqueda tiene {} campañas y la base de datos {}: se reconstruye",
+                            enIndice, enBaseDeDatos);
+                    reconstruir();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("No se pudo reconstruir el índice de búsqueda de campañas", e);
+            }
+        });
+    }
+
+    /**
+     * Vuelve a indexar todas las campañas, leídas por páginas, sobre el índice existente: cada documento se
+     * reemplaza por el nuevo y los de campañas que ya no existen se borran al final, así que las búsquedas no ven
+     * nunca un índice a medio llenar. Hasta que termina, el índice confirmado en disco queda sin versión y se vuelve
+     * a reconstruir si la aplicación se cierra antes.
+     */
+    public synchronized void reconstruir() throws IOException {
+        long inicio = System.currentTimeMillis();
+        Set<Long> cambiadas = ConcurrentHashMap.newKeySet();
+        generacion = Long.toString(inicio);
+        cambiadasDuranteReconstruccion = cambiadas;
+        try {
+            writer.setLiveCommitData(Map.of(CLAVE_VERSION, "").entrySet());
+            long total = 0;
+            Long despuesDe = 0L;
+            List<CampañaExportacionDTO> pagina;
+            do {
+                pagina = campañaRepository.findExportacionDespuesDe(despuesDe, PageRequest.of(0, tamanoLote));
+                for (CampañaExportacionDTO campaña : pagina) {
+                    // Las que han cambiado desde que se leyó la página ya las ha indexado su evento
+                    if (!cambiadas.contains(campaña.getId())) {
+                        writer.updateDocument(new Term(CAMPO_ID, campaña.getId().toString()), documento(campaña.getId(),
+                                campaña.getNombre(), campaña.getDescripcion(), campaña.getUbicacion(),
+                                campaña.getEstado(), campaña.getLatitud(), campaña.getLongitud()));
+                    }
+                }
+                if (!pagina.isEmpty()) {
+                    despuesDe = pagina.get(pagina.size() - 1).getId();
+                }
+                total += pagina.size();
+            } while (pagina.size() == tamanoLote);
+            // Lo que no se ha reescrito en esta reconstrucción son campañas que ya no están en la base de datos
+            writer.deleteDocuments(new BooleanQuery.Builder()
+                    .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                    .add(new TermQuery(new Term(CAMPO_GENERACION, generacion)), BooleanClause.Occur.MUST_NOT)
+                    .build());
+            // Un cambio pudo llegar entre la comprobación de arriba y la escritura de la página: se vuelven a leer
+            // de la base de datos todas las campañas que han cambiado durante la reconstrucción
+            for (Long idCampaña : cambiadas) {
+                indexar(idCampaña);
+            }
+            writer.setLiveCommitData(Map.of(CLAVE_VERSION, VERSION_INDICE).entrySet());
+            writer.commit();
+            searcherManager.maybeRefresh();
+            log.info("Índice de búsqueda reconstruido: {} campañas ({} cambiadas durante la reconstrucción) en {} ms",
+                    total, cambiadas.size(), System.currentTimeMillis() - inicio);
+        } finally {
+            cambiadasDuranteReconstruccion = null;
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        searcherManager.close();
+        writer.close(); // Confirma los cambios pendientes
+        directorio.close();
+    }
+
+    private Document documento(Long id, String nombre, String descripcion, String ubicacion, EstadoCampaña estado,
+                               Double latitud, Double longitud) {
+        Document documento = new Document();
+        documento.add(new StringField(CAMPO_ID, id.toString(), Field.Store.YES));
+        documento.add(new StringField(CAMPO_GENERACION, generacion, Field.Store.NO));
+        if (nombre != null) {
+            documento.add(new TextField(CAMPO_NOMBRE, nombre, Field.Store.YES));
+            documento.add(new TextField(CAMPO_PREFIJOS, nombre, Field.Store.NO));
+        }
+        if (descripcion != null) {
+            documento.add(new TextField(CAMPO_DESCRIPCION, descripcion, Field.Store.NO));
+        }
+        if (ubicacion != null) {
+            documento.add(new TextField(CAMPO_UBICACION, ubicacion, Field.Store.NO));
+        }
+        if (estado == EstadoCampaña.ACTIVA && latitud != null && longitud != null) {
+            // El punto va al árbol BKD (filtro por radio) y los doc values permiten ordenar por distancia
+            documento.add(new LatLonPoint(CAMPO_POSICION_ACTIVA, latitud, longitud));
+            documento.add(new LatLonDocValuesField(CAMPO_POSICION_ACTIVA, latitud, longitud));
+        }
+        return documento;
+    }
+
+    private static Set<String> analizar(Analyzer analizador, String campo, String texto) throws IOException {
+        Set<String> terminos = new LinkedHashSet<>();
+        try (TokenStream flujo = analizador.tokenStream(campo, texto)) {
+            CharTermAttribute termino = flujo.addAttribute(CharTermAttribute.class);
+            flujo.reset();
+            while (flujo.incrementToken() && terminos.size() < TERMINOS_MAXIMOS) {
+                terminos.add(termino.toString());
+            }
+            flujo.end();
+        }
+        return terminos;
+    }
+
+    private static int limitar(int tamano, int maximo) {
+        return Math.max(1, Math.min(tamano, maximo));
+    }
+
+    private enum Modo {
+        TEXTO,              // Sin palabras vacías, sin acentos y reducido a la raíz
+        PREFIJOS,           // Sin acentos y con los prefijos de cada palabra (índice del autocompletado)
+        CONSULTA_PREFIJOS   // Sin acentos (lo que se escribe en el autocompletado)
+    }
+
+    /**
+     * Analizador del español. Las palabras vacías se quitan antes de eliminar los acentos porque la lista los
+     * incluye ("más", "él"); la ñ pasa a n, así que "Campaña", "campana" y "CAMPAÑAS" dan el mismo término.
+     */
+    private static final class AnalizadorEspañol extends Analyzer {
+
+        private final Modo modo;
+
+        AnalizadorEspañol(Modo modo) {
+            this.modo = modo;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String campo) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            TokenStream flujo = new LowerCaseFilter(tokenizer);
+            if (modo == Modo.TEXTO) {
+                flujo = new StopFilter(flujo, SpanishAnalyzer.getDefaultStopSet());
+            }
+            flujo = new ASCIIFoldingFilter(flujo);
+            if (modo == Modo.TEXTO) {
+                flujo = new SpanishLightStemFilter(flujo);
+            } else if (modo == Modo.PREFIJOS) {
+                flujo = new EdgeNGramTokenFilter(flujo, LONGITUD_PREFIJO_MINIMA, LONGITUD_PREFIJO_MAXIMA, true);
+            }
+            return new TokenStreamComponents(tokenizer, flujo);
+        }
+
+        @Override
+        protected TokenStream normalize(String campo, TokenStream flujo) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(flujo));
+        }
+    }
+}
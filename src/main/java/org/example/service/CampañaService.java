@@ -1,73 +1,204 @@
 package org.example.service;
 
+import org.example.dto.CampañaResumenDTO;
+import org.example.dto.EventoCalendarioDTO;
+import org.example.dto.PaginaCursorDTO;
+import org.example.event.CampañaActualizada;
+import org.example.event.CampañaCreada;
+import org.example.event.CampañaEliminada;
+import org.example.event.InscripcionAnulada;
+import org.example.event.VoluntarioInscrito;
 import org.example.model.Campaña;
-import org.example.model.Notificacion;
-import org.example.model.Usuario;
+import org.example.model.EstadoCampaña;
+import org.example.model.InscripcionId;
 import org.example.repository.CampañaRepository;
+import org.example.repository.CampañaRepositoryCustom;
+import org.example.repository.InscripcionRepository;
 import org.example.repository.UsuarioRepository;
+import org.example.util.CoordenadasUtil;
+import org.example.util.CursorUtil;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class CampañaService {
 
+    private static final int TAMANO_PAGINA_MAXIMO = 100;
+    // Ventana máxima del calendario: un año cubre cualquier vista de FullCalendar (mes, semana, día)
+    private static final int VENTANA_CALENDARIO_MAXIMA_DIAS = 366;
+
+    // Duración en días de la campaña más larga, para acotar la consulta del calendario. Se carga de la base de datos
+    // en la primera consulta y después solo crece con las altas y modificaciones; al borrar o acortar campañas
+    // queda por exceso, lo que amplía un poco el rango recorrido pero nunca deja fuera eventos.
+    private final AtomicLong duracionMaximaDias = new AtomicLong();
+    private volatile boolean duracionMaximaCargada;
+
+    private static final String INSERT_INSCRIPCION =
+            "INSERT INTO campana_voluntarios (campana_id, voluntario_id) VALUES (?, ?)";
+
+    private static final String RECUENTO_INSCRITOS =
+            "COALESCE(inscritos, (SELECT COUNT(*) FROM campana_voluntarios v WHERE v.campana_id = campanas.id))";
+
+    // Reserva plazas: una única sentencia condicional, así dos inscripciones simultáneas no pueden ocupar las
+    // últimas plazas a la vez (la segunda ve el contador ya incrementado y no actualiza ninguna fila).
+    private static final String RESERVAR_PLAZAS =
+            "UPDATE campanas SET inscritos = " + RECUENTO_INSCRITOS + " + ? " +
+            "WHERE id = ? AND (cupo_maximo IS NULL OR " + RECUENTO_INSCRITOS + " + ? <= cupo_maximo)";
+
+    private static final String PLAZAS_LIBRES =
+            "SELECT cupo_maximo - " + RECUENTO_INSCRITOS + " FROM campanas WHERE id = ?";
+
+    // Si el contador aún no está inicializado no se toca: el recuento real ya no incluye la inscripción borrada
+    private static final String LIBERAR_PLAZAS =
+            "UPDATE campanas SET inscritos = GREATEST(inscritos - ?, 0) WHERE id = ? AND inscritos IS NOT NULL";
+
     private final CampañaRepository campañaRepository;
-    private final NotificacionService notificacionService;
     private final UsuarioRepository usuarioRepository;
+    private final InscripcionRepository inscripcionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CampañaService(CampañaRepository campañaRepository, NotificacionService notificacionService, UsuarioRepository usuarioRepository) {
+    public CampañaService(CampañaRepository campañaRepository, UsuarioRepository usuarioRepository,
+                          InscripcionRepository inscripcionRepository, JdbcTemplate jdbcTemplate,
+                          ApplicationEventPublisher eventPublisher) {
         this.campañaRepository = campañaRepository;
-        this.notificacionService = notificacionService;
         this.usuarioRepository = usuarioRepository;
+        this.inscripcionRepository = inscripcionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Campaña> getAllCampanas() {
         return campañaRepository.findAll();
     }
 
+    /**
+     * Obtiene una página del listado de campañas (paginación por clave, proyectada a {@link CampañaResumenDTO}).
+     * @param orden Campo de orden: "fechaInicio" (por defecto) o "nombre".
+     * @param direccion "asc" (por defecto) o "desc".
+     * @param cursor El 'siguienteCursor' de la página anterior; null para la primera.
+     * @param tamano Número de campañas por página (máximo 100).
+     * @throws IllegalArgumentException si el orden, la dirección o el cursor no son válidos.
+     */
+    public PaginaCursorDTO<CampañaResumenDTO> getPaginaCampanas(CampañaRepositoryCustom.Filtro filtro, String orden,
+                                                                 String direccion, String cursor, int tamano) {
+        CampañaRepositoryCustom.Orden campoOrden = switch (orden == null ? "fechaInicio" : orden) {
+            case "fechaInicio" -> CampañaRepositoryCustom.Orden.FECHA_INICIO;
+            case "nombre" -> CampañaRepositoryCustom.Orden.NOMBRE;
+            default -> throw new IllegalArgumentException("Orden no soportado: " + orden);
+        };
+        boolean ascendente;
+        if (direccion == null || direccion.equalsIgnoreCase("asc")) {
+            ascendente = true;
+        } else if (direccion.equalsIgnoreCase("desc")) {
+            ascendente = false;
+        } else {
+            throw new IllegalArgumentException("Dirección no soportada: " + direccion);
+        }
+
+        Comparable<?> valorDespuesDe = null;
+        Long idDespuesDe = null;
+        if (cursor != null && !cursor.isBlank()) {
+            CursorUtil.PosicionTexto posicion = CursorUtil.decodificarTexto(cursor);
+            try {
+                valorDespuesDe = campoOrden == CampañaRepositoryCustom.Orden.FECHA_INICIO
+                        ? LocalDate.parse(posicion.valor()) : posicion.valor();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido.", e);
+            }
+            idDespuesDe = posicion.id();
+        }
+
+        int limite = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        // Se pide un elemento de más para saber si existe una página siguiente
+        List<CampañaResumenDTO> campanas = campañaRepository.buscarPagina(filtro, campoOrden, ascendente,
+                valorDespuesDe, idDespuesDe, limite + 1);
+
+        String siguienteCursor = null;
+        if (campanas.size() > limite) {
+            campanas = campanas.subList(0, limite);
+            CampañaResumenDTO ultima = campanas.get(limite - 1);
+            String valorOrden = campoOrden == CampañaRepositoryCustom.Orden.FECHA_INICIO
+                    ? ultima.getFechaInicio().toString() : ultima.getNombre();
+            siguienteCursor = CursorUtil.codificar(valorOrden, ultima.getId());
+        }
+        return new PaginaCursorDTO<>(campanas, siguienteCursor);
+    }
+
+    /**
+     * Obtiene los eventos del calendario: las campañas que se solapan con la ventana [desde, hasta].
+     * @throws IllegalArgumentException si 'desde' es posterior a 'hasta' o la ventana supera un año.
+     */
+    public List<EventoCalendarioDTO> getEventosCalendario(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha 'from' no puede ser posterior a 'to'.");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > VENTANA_CALENDARIO_MAXIMA_DIAS) {
+            throw new IllegalArgumentException("La ventana del calendario no puede superar "
+                    + VENTANA_CALENDARIO_MAXIMA_DIAS + " días.");
+        }
+        return campañaRepository.findEventosEnVentana(desde, hasta, desde.minusDays(getDuracionMaximaDias()));
+    }
+
+    private long getDuracionMaximaDias() {
+        if (!duracionMaximaCargada) {
+            duracionMaximaDias.accumulateAndGet(campañaRepository.findDuracionMaximaDias(), Math::max);
+            duracionMaximaCargada = true;
+        }
+        return duracionMaximaDias.get();
+    }
+
+    private void registrarDuracion(Campaña campaña) {
+        long dias = ChronoUnit.DAYS.between(campaña.getFechaInicio(), campaña.getFechaFin());
+        duracionMaximaDias.accumulateAndGet(dias, Math::max);
+    }
+
     public Optional<Campaña> getCampañaById(Long id) {
         return campañaRepository.findById(id);
     }
 
-    @Transactional // Asegura que la operación sea atómica (todas las notificaciones o ninguna)
+    /**
+     * @throws IllegalArgumentException si las coordenadas no son válidas.
+     */
+    @Transactional
     public Campaña createCampaña(Campaña campaña, Long adminId) {
+        CoordenadasUtil.validar(campaña.getLatitud(), campaña.getLongitud());
         Campaña newCampaña = campañaRepository.save(campaña);
+        registrarDuracion(newCampaña);
 
-        // 1. Notificación para el administrador que creó la campaña
-        Notificacion adminNotificacion = new Notificacion();
-        adminNotificacion.setIdUsuario(adminId);
-        adminNotificacion.setTitulo("Campaña Creada");
-        adminNotificacion.setMensaje("Has creado la campaña: " + newCampaña.getNombre() + " en " + newCampaña.getUbicacion() + ".");
-        adminNotificacion.setFechaCreacion(LocalDateTime.now());
-        adminNotificacion.setLeida(false);
-        notificacionService.crearNotificacion(adminNotificacion);
-
-        // 2. Notificación para TODOS los voluntarios sobre la nueva campaña
-        List<Usuario> voluntarios = usuarioRepository.findByRol("VOLUNTARIO");
-        for (Usuario voluntario : voluntarios) {
-            Notificacion voluntarioNotificacion = new Notificacion();
-            voluntarioNotificacion.setIdUsuario(voluntario.getId());
-            voluntarioNotificacion.setTitulo("¡Nueva Campaña Disponible!");
-            voluntarioNotificacion.setMensaje("Se ha publicado una nueva campaña: '" + newCampaña.getNombre() + "' en '" + newCampaña.getUbicacion() + "'. ¡Inscríbete!");
-            voluntarioNotificacion.setFechaCreacion(LocalDateTime.now());
-            voluntarioNotificacion.setLeida(false);
-            notificacionService.crearNotificacion(voluntarioNotificacion);
-        }
+        // Las notificaciones (administrador y todos los voluntarios) se escriben en la tabla de salida
+        // dentro de esta transacción y se despachan en segundo plano (ver OutboxService).
+        eventPublisher.publishEvent(new CampañaCreada(newCampaña.getId(), newCampaña.getNombre(), newCampaña.getUbicacion(),
+                newCampaña.getEstado(), adminId));
 
         return newCampaña;
     }
 
+    /**
+     * @throws IllegalArgumentException si las coordenadas no son válidas.
+     */
     @Transactional
     public Campaña updateCampaña(Long id, Campaña campañaDetails, Long adminId) {
+        CoordenadasUtil.validar(campañaDetails.getLatitud(), campañaDetails.getLongitud());
         Campaña campaña = campañaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Campaña no encontrada con ID: " + id));
 
-        String oldEstado = campaña.getEstado().name();
+        EstadoCampaña oldEstado = campaña.getEstado();
 
         campaña.setNombre(campañaDetails.getNombre());
         campaña.setDescripcion(campañaDetails.getDescripcion());
@@ -75,29 +206,16 @@ public class CampañaService {
         campaña.setFechaInicio(campañaDetails.getFechaInicio());
         campaña.setFechaFin(campañaDetails.getFechaFin());
         campaña.setEstado(campañaDetails.getEstado());
+        campaña.setCupoMaximo(campañaDetails.getCupoMaximo());
+        campaña.setLatitud(campañaDetails.getLatitud());
+        campaña.setLongitud(campañaDetails.getLongitud());
 
         Campaña updatedCampaña = campañaRepository.save(campaña);
+        registrarDuracion(updatedCampaña);
 
-        // Notificación para el administrador que actualizó la campaña
-        Notificacion adminNotificacion = new Notificacion();
-        adminNotificacion.setIdUsuario(adminId);
-        adminNotificacion.setTitulo("Campaña Actualizada");
-        adminNotificacion.setMensaje("La campaña '" + updatedCampaña.getNombre() + "' ha sido actualizada. Estado anterior: " + oldEstado + ", Nuevo estado: " + updatedCampaña.getEstado().name() + ".");
-        adminNotificacion.setFechaCreacion(LocalDateTime.now());
-        adminNotificacion.setLeida(false);
-        notificacionService.crearNotificacion(adminNotificacion);
-
-        // Notificación para los voluntarios INSCRITOS si la campaña se actualiza
-        Set<Usuario> voluntariosInscritos = updatedCampaña.getVoluntariosInscritos();
-        for (Usuario voluntario : voluntariosInscritos) {
-            Notificacion voluntarioNotificacion = new Notificacion();
-            voluntarioNotificacion.setIdUsuario(voluntario.getId());
-            voluntarioNotificacion.setTitulo("Actualización de Campaña: " + updatedCampaña.getNombre());
-            voluntarioNotificacion.setMensaje("¡Importante! La campaña '" + updatedCampaña.getNombre() + "' ha sido actualizada. Nuevo estado: " + updatedCampaña.getEstado().name() + ".");
-            voluntarioNotificacion.setFechaCreacion(LocalDateTime.now());
-            voluntarioNotificacion.setLeida(false);
-            notificacionService.crearNotificacion(voluntarioNotificacion);
-        }
+        // Notifica al administrador y a los voluntarios inscritos
+        eventPublisher.publishEvent(new CampañaActualizada(updatedCampaña.getId(), updatedCampaña.getNombre(),
+                oldEstado, updatedCampaña.getEstado(), adminId));
 
         return updatedCampaña;
     }
@@ -107,89 +225,109 @@ public class CampañaService {
         Campaña campañaToDelete = campañaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Campaña no encontrada con ID: " + id));
 
-        // Notificar a los voluntarios INSCRITOS antes de eliminar la campaña
-        Set<Usuario> voluntariosInscritos = campañaToDelete.getVoluntariosInscritos();
-        for (Usuario voluntario : voluntariosInscritos) {
-            Notificacion voluntarioNotificacion = new Notificacion();
-            voluntarioNotificacion.setIdUsuario(voluntario.getId());
-            voluntarioNotificacion.setTitulo("Campaña Eliminada: " + campañaToDelete.getNombre());
-            voluntarioNotificacion.setMensaje("La campaña '" + campañaToDelete.getNombre() + "' en la que estabas inscrito ha sido eliminada.");
-            voluntarioNotificacion.setFechaCreacion(LocalDateTime.now());
-            voluntarioNotificacion.setLeida(false);
-            notificacionService.crearNotificacion(voluntarioNotificacion);
-        }
+        // Los inscritos se capturan antes de eliminar, ya que sus inscripciones se borran con la campaña
+        List<Long> idsInscritos = inscripcionRepository.findIdsVoluntarios(id);
 
-        campañaRepository.deleteById(id);
+        inscripcionRepository.deleteByIdCampaña(id);
+        campañaRepository.delete(campañaToDelete);
 
-        // Notificación para el administrador que eliminó la campaña
-        Notificacion adminNotificacion = new Notificacion();
-        adminNotificacion.setIdUsuario(adminId);
-        adminNotificacion.setTitulo("Campaña Eliminada");
-        adminNotificacion.setMensaje("Has eliminado la campaña: '" + campañaToDelete.getNombre() + "'.");
-        adminNotificacion.setFechaCreacion(LocalDateTime.now());
-        adminNotificacion.setLeida(false);
-        notificacionService.crearNotificacion(adminNotificacion);
+        eventPublisher.publishEvent(new CampañaEliminada(id, campañaToDelete.getNombre(), campañaToDelete.getEstado(),
+                idsInscritos, adminId));
     }
 
     /**
-     * Inscribe un voluntario a una campaña.*/
+     * Inscribe un voluntario a una campaña. La inscripción se inserta directamente; la clave primaria de
+     * campana_voluntarios decide si ya existía, sin cargar la lista de inscritos.
+     * @return false si el voluntario ya estaba inscrito.
+     * @throws IllegalStateException si la campaña no tiene plazas libres. */
     @Transactional
     public boolean inscribirVoluntario(Long idCampaña, Long idVoluntario) {
         Campaña campaña = campañaRepository.findById(idCampaña)
                 .orElseThrow(() -> new RuntimeException("Campaña no encontrada con ID: " + idCampaña));
-        Usuario voluntario = usuarioRepository.findById(idVoluntario)
-                .orElseThrow(() -> new RuntimeException("Voluntario no encontrado con ID: " + idVoluntario));
-
-        if (campaña.getVoluntariosInscritos().add(voluntario)) { // Si se añade (no estaba ya)
-            campañaRepository.save(campaña);
-
-            // Notificación para el voluntario sobre su inscripción
-            Notificacion voluntarioNotificacion = new Notificacion();
-            voluntarioNotificacion.setIdUsuario(idVoluntario);
-            voluntarioNotificacion.setTitulo("¡Inscripción Exitosa!");
-            voluntarioNotificacion.setMensaje("Te has inscrito exitosamente en la campaña: '" + campaña.getNombre() + "'.");
-            voluntarioNotificacion.setFechaCreacion(LocalDateTime.now());
-            voluntarioNotificacion.setLeida(false);
-            notificacionService.crearNotificacion(voluntarioNotificacion);
+        if (!usuarioRepository.existsById(idVoluntario)) {
+            throw new RuntimeException("Voluntario no encontrado con ID: " + idVoluntario);
+        }
 
-            return true;
+        if (inscripcionRepository.existsById(new InscripcionId(idCampaña, idVoluntario))) {
+            return false; // Ya estaba inscrito
         }
-        return false; // Ya estaba inscrito
+        if (reservarPlazas(idCampaña, 1) == 0) {
+            throw new IllegalStateException("La campaña no tiene plazas libres.");
+        }
+        try {
+            jdbcTemplate.update(INSERT_INSCRIPCION, idCampaña, idVoluntario);
+        } catch (DuplicateKeyException e) {
+            // Otra petición del mismo voluntario se inscribió a la vez: se devuelve la plaza reservada
+            liberarPlazas(idCampaña, 1);
+            return false;
+        }
+        eventPublisher.publishEvent(new VoluntarioInscrito(idCampaña, campaña.getNombre(), idVoluntario));
+        return true;
     }
 
     /**
-     * Anula la inscripción de un voluntario de una campaña. */
+     * Anula la inscripción de un voluntario de una campaña.
+     * @return false si el voluntario no estaba inscrito. */
     @Transactional
     public boolean anularInscripcion(Long idCampaña, Long idVoluntario) {
         Campaña campaña = campañaRepository.findById(idCampaña)
                 .orElseThrow(() -> new RuntimeException("Campaña no encontrada con ID: " + idCampaña));
-        Usuario voluntario = usuarioRepository.findById(idVoluntario)
-                .orElseThrow(() -> new RuntimeException("Voluntario no encontrado con ID: " + idVoluntario));
+        if (!usuarioRepository.existsById(idVoluntario)) {
+            throw new RuntimeException("Voluntario no encontrado con ID: " + idVoluntario);
+        }
 
-        if (campaña.getVoluntariosInscritos().remove(voluntario)) { // Si se elimina (estaba)
-            campañaRepository.save(campaña);
+        if (inscripcionRepository.anular(idCampaña, idVoluntario) == 0) {
+            return false; // No estaba inscrito
+        }
+        liberarPlazas(idCampaña, 1);
+        eventPublisher.publishEvent(new InscripcionAnulada(idCampaña, campaña.getNombre(), idVoluntario));
+        return true;
+    }
 
-            // Notificación para el voluntario sobre su anulación
-            Notificacion voluntarioNotificacion = new Notificacion();
-            voluntarioNotificacion.setIdUsuario(idVoluntario);
-            voluntarioNotificacion.setTitulo("Inscripción Anulada");
-            voluntarioNotificacion.setMensaje("Has anulado tu inscripción en la campaña: '" + campaña.getNombre() + "'.");
-            voluntarioNotificacion.setFechaCreacion(LocalDateTime.now());
-            voluntarioNotificacion.setLeida(false);
-            notificacionService.crearNotificacion(voluntarioNotificacion);
+    /**
+     * Reserva hasta 'plazas' plazas de una campaña (todas si no tiene cupo). Se llama dentro de la transacción
+     * que inserta las inscripciones, para que las plazas se devuelvan si esta no llega a confirmarse.
+     * @return Número de plazas reservadas: menos de las pedidas si no caben todas, 0 si está completa o no existe. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int reservarPlazas(Long idCampaña, int plazas) {
+        while (plazas > 0 && jdbcTemplate.update(RESERVAR_PLAZAS, plazas, idCampaña, plazas) == 0) {
+            // No caben todas: se vuelve a intentar con las que quedan libres ahora
+            Integer libres = DataAccessUtils.singleResult(jdbcTemplate.queryForList(PLAZAS_LIBRES, Integer.class, idCampaña));
+            plazas = libres == null ? 0 : Math.min(plazas, Math.max(libres, 0));
+        }
+        return plazas;
+    }
 
-            return true;
+    /**
+     * Devuelve plazas reservadas que no se han llegado a ocupar (o de inscripciones anuladas). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberarPlazas(Long idCampaña, int plazas) {
+        if (plazas > 0) {
+            jdbcTemplate.update(LIBERAR_PLAZAS, plazas, idCampaña);
         }
-        return false; // No estaba inscrito
     }
 
     /**
      * Verifica si un voluntario está inscrito en una campaña. */
-
     public boolean isVoluntarioInscrito(Long idCampaña, Long idVoluntario) {
-        return campañaRepository.findById(idCampaña)
-                .map(campana -> campana.getVoluntariosInscritos().stream()
-                        .anyMatch(voluntario -> voluntario.getId().equals(idVoluntario)))
-                .orElse(false);
+        return inscripcionRepository.existsById(new InscripcionId(idCampaña, idVoluntario));
+    }
+
+    /**
+     * Estado de inscripción de un voluntario en varias campañas a la vez, con una sola consulta.
+     * @return Para cada ID de campaña pedido, si el voluntario está inscrito (false también si la campaña no existe).
+     * @throws IllegalArgumentException si se piden más de 100 campañas.
+     */
+    public Map<Long, Boolean> getEstadoInscripciones(Long idVoluntario, Collection<Long> idsCampañas) {
+        if (idsCampañas.size() > TAMANO_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("No se pueden consultar más de " + TAMANO_PAGINA_MAXIMO + " campañas a la vez.");
+        }
+        Map<Long, Boolean> estado = new LinkedHashMap<>();
+        idsCampañas.forEach(id -> estado.put(id, false));
+        if (!estado.isEmpty()) {
+            inscripcionRepository.findIdsCampañas(idVoluntario, estado.keySet())
+                    .forEach(id -> estado.put(id, true));
+        }
+        return estado;
     }
 }
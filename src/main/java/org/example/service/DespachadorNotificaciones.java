@@ -0,0 +1,190 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.model.EventoSalida;
+import org.example.model.TipoDestino;
+import org.example.repository.DestinatarioEventoSalidaRepository;
+import org.example.repository.EventoSalidaRepository;
+import org.example.repository.InscripcionRepository;
+import org.example.repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Vacía la tabla de salida de notificaciones en segundo plano.
+ * Cada ciclo reserva eventos pendientes y los reparte entre los trabajadores de 'notificacionesExecutor'.
+ * Un trabajador resuelve los destinatarios por lotes de IDs y, en una sola transacción por lote, inserta las
+ * notificaciones (todas referencian una única plantilla con el texto) y avanza el cursor del evento. Si el trabajador cae, la reserva expira y otro retoma el evento
+ * desde el último lote confirmado (entrega al menos una vez, sin duplicar lotes ya confirmados). Un evento que agota
+ * sus intentos se marca como fallido y deja de reclamarse. */
+@Service
+public class DespachadorNotificaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachadorNotificaciones.class);
+
+    private final EventoSalidaRepository eventoSalidaRepository;
+    private final DestinatarioEventoSalidaRepository destinatarioRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final InscripcionRepository inscripcionRepository;
+    private final NotificacionService notificacionService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+
+    @Value("${notificaciones.difusion.tamano-lote:1000}")
+    private int tamanoLote;
+
+    @Value("${notificaciones.outbox.eventos-por-ciclo:50}")
+    private int eventosPorCiclo;
+
+    @Value("${notificaciones.outbox.reserva-segundos:60}")
+    private long reservaSegundos;
+
+    @Value("${notificaciones.outbox.intentos-maximos:5}")
+    private int intentosMaximos;
+
+    @Value("${notificaciones.outbox.retencion-dias:7}")
+    private long retencionDias;
+
+    public DespachadorNotificaciones(EventoSalidaRepository eventoSalidaRepository,
+                                     DestinatarioEventoSalidaRepository destinatarioRepository,
+                                     UsuarioRepository usuarioRepository, InscripcionRepository inscripcionRepository,
+                                     NotificacionService notificacionService,
+                                     PlatformTransactionManager transactionManager,
+                                     @Qualifier("notificacionesExecutor") Executor executor,
+                                     MeterRegistry meterRegistry) {
+        this.eventoSalidaRepository = eventoSalidaRepository;
+        this.destinatarioRepository = destinatarioRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.inscripcionRepository = inscripcionRepository;
+        this.notificacionService = notificacionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+
+        Gauge.builder("notificaciones.outbox.pendientes", eventoSalidaRepository,
+                        EventoSalidaRepository::countByProcesadoFalseAndFallidoFalse)
+                .description("Eventos de la tabla de salida aún no despachados")
+                .register(meterRegistry);
+        Gauge.builder("notificaciones.outbox.fallidos", eventoSalidaRepository, EventoSalidaRepository::countByFallidoTrue)
+                .description("Eventos de la tabla de salida que agotaron sus intentos sin despacharse")
+                .register(meterRegistry);
+        Gauge.builder("notificaciones.outbox.retraso", this, DespachadorNotificaciones::segundosDeRetraso)
+                .description("Antigüedad del evento pendiente más antiguo")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notificaciones.outbox.intervalo-ms:500}")
+    public void despachar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> pendientes = eventoSalidaRepository.findIdsPendientes(ahora, PageRequest.of(0, eventosPorCiclo));
+        for (Long idEvento : pendientes) {
+            String token = UUID.randomUUID().toString();
+            if (eventoSalidaRepository.reclamar(idEvento, token, ahora, ahora.plusSeconds(reservaSegundos), intentosMaximos) == 0) {
+                // Otro trabajador se adelantó o el evento ya no admite más intentos
+                if (eventoSalidaRepository.marcarFallido(idEvento, intentosMaximos, ahora) > 0) {
+                    log.error("El evento de salida {} ha agotado sus {} intentos: se marca como fallido y no se volverá a despachar",
+                            idEvento, intentosMaximos);
+                }
+                continue;
+            }
+            try {
+                executor.execute(() -> procesar(idEvento, token));
+            } catch (TaskRejectedException e) {
+                // Los trabajadores están saturados: se devuelve el evento y se reintenta en el siguiente ciclo
+                eventoSalidaRepository.liberar(idEvento, token);
+                break;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${notificaciones.outbox.limpieza-cron:0 0 * * * *}")
+    public void eliminarProcesados() {
+        int eliminados = eventoSalidaRepository.eliminarProcesadosAntesDe(LocalDateTime.now().minusDays(retencionDias));
+        if (eliminados > 0) {
+            log.info("Eliminados {} eventos de salida ya despachados", eliminados);
+        }
+    }
+
+    private void procesar(Long idEvento, String token) {
+        try {
+            boolean terminado = false;
+            while (!terminado) {
+                terminado = Boolean.TRUE.equals(transactionTemplate.execute(status -> procesarLote(idEvento, token)));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error despachando el evento de salida {}; se reintentará al expirar su reserva", idEvento, e);
+        }
+    }
+
+    /**
+     * Procesa el siguiente lote de destinatarios de un evento dentro de la transacción actual.
+     * @return true si el evento quedó completamente despachado (o ya no nos pertenece).
+     */
+    private boolean procesarLote(Long idEvento, String token) {
+        EventoSalida evento = eventoSalidaRepository.findById(idEvento).orElse(null);
+        if (evento == null || evento.isProcesado() || !token.equals(evento.getReclamadoPor())) {
+            return true;
+        }
+
+        List<Long> destinatarios = resolverDestinatarios(evento);
+        if (!destinatarios.isEmpty()) {
+            Long idPlantilla = evento.getIdPlantilla();
+            if (idPlantilla == null) {
+                idPlantilla = notificacionService.crearPlantilla(evento.getTitulo(), evento.getMensaje()).getId();
+                eventoSalidaRepository.asignarPlantilla(idEvento, token, idPlantilla);
+            }
+            notificacionService.crearNotificacionesEnLote(destinatarios, idPlantilla);
+            Long nuevoCursor = destinatarios.get(destinatarios.size() - 1);
+            LocalDateTime nuevaReserva = LocalDateTime.now().plusSeconds(reservaSegundos);
+            if (eventoSalidaRepository.avanzarCursor(idEvento, token, evento.getUltimoIdUsuario(), nuevoCursor, nuevaReserva) == 0) {
+                // La reserva expiró y otro trabajador retomó el evento: se deshace este lote
+                throw new IllegalStateException("Reserva perdida para el evento de salida " + idEvento);
+            }
+        }
+
+        if (destinatarios.size() < tamanoLote) {
+            eventoSalidaRepository.marcarProcesado(idEvento, token, LocalDateTime.now());
+            if (evento.getTipoDestino() == TipoDestino.LISTA) {
+                destinatarioRepository.deleteByIdEvento(idEvento);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Siguiente página de destinatarios (IDs crecientes) posteriores al cursor del evento.
+    private List<Long> resolverDestinatarios(EventoSalida evento) {
+        Long despuesDe = evento.getUltimoIdUsuario();
+        PageRequest pagina = PageRequest.of(0, tamanoLote);
+        return switch (evento.getTipoDestino()) {
+            case USUARIO -> {
+                Long idUsuario = Long.valueOf(evento.getDestino());
+                yield idUsuario > despuesDe ? List.of(idUsuario) : List.of();
+            }
+            case ROL -> usuarioRepository.findIdsByRolDespuesDe(evento.getDestino(), despuesDe, pagina);
+            case INSCRITOS_CAMPANA -> inscripcionRepository.findIdsVoluntariosDespuesDe(
+                    Long.valueOf(evento.getDestino()), despuesDe, pagina);
+            case LISTA -> destinatarioRepository.findIdsUsuarioDespuesDe(evento.getId(), despuesDe, pagina);
+        };
+    }
+
+    private double segundosDeRetraso() {
+        LocalDateTime masAntigua = eventoSalidaRepository.findFechaCreacionPendienteMasAntigua();
+        return masAntigua == null ? 0 : Duration.between(masAntigua, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.dto.CampañaExportacionDTO;
+import org.example.dto.UsuarioResumenDTO;
+import org.example.repository.CampañaRepository;
+import org.example.repository.UsuarioRepository;
+import org.example.util.CsvUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Exportación completa de usuarios y campañas en CSV o NDJSON (un objeto JSON por línea).
+ * Como la de inscritos, pagina por clave y escribe cada página en la respuesta antes de leer la siguiente:
+ * las filas se proyectan a DTO en la consulta (no quedan entidades en el contexto de persistencia) y cada página
+ * es una consulta corta, así que la memoria no crece con el número de filas y el primer byte sale tras la
+ * primera página.
+ */
+@Service
+public class ExportacionService {
+
+    public enum Formato {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        NDJSON("application/x-ndjson;charset=UTF-8", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @throws IllegalArgumentException si el formato no es "csv" ni "ndjson".
+         */
+        public static Formato desde(String valor) {
+            return valueOf(valor.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final String CABECERA_USUARIOS = "id,nombreUsuario,nombre,apellido,email,telefono,rol,calificacion,activo";
+
+    private static final String CABECERA_CAMPANAS = "id,nombre,descripcion,ubicacion,fechaInicio,fechaFin,estado,cupoMaximo,latitud,longitud";
+
+    private final UsuarioRepository usuarioRepository;
+    private final CampañaRepository campañaRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${exportacion.tamano-pagina:1000}")
+    private int tamanoPagina;
+
+    public ExportacionService(UsuarioRepository usuarioRepository, CampañaRepository campañaRepository,
+                              ObjectMapper objectMapper) {
+        this.usuarioRepository = usuarioRepository;
+        this.campañaRepository = campañaRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportarUsuarios(Formato formato, OutputStream salida) throws IOException {
+        exportar(formato, salida, CABECERA_USUARIOS, usuarioRepository::findExportacionDespuesDe,
+                UsuarioResumenDTO::getId,
+                u -> u.getId() + "," + CsvUtil.escapar(u.getNombreUsuario()) + "," + CsvUtil.escapar(u.getNombre()) + ","
+                        + CsvUtil.escapar(u.getApellido()) + "," + CsvUtil.escapar(u.getEmail()) + ","
+                        + CsvUtil.escapar(u.getTelefono()) + "," + CsvUtil.escapar(u.getRol()) + ","
+                        + u.getCalificacion() + "," + u.isActivo());
+    }
+
+    public void exportarCampañas(Formato formato, OutputStream salida) throws IOException {
+        exportar(formato, salida, CABECERA_CAMPANAS, campañaRepository::findExportacionDespuesDe,
+                CampañaExportacionDTO::getId,
+                c -> c.getId() + "," + CsvUtil.escapar(c.getNombre()) + "," + CsvUtil.escapar(c.getDescripcion()) + ","
+                        + CsvUtil.escapar(c.getUbicacion()) + "," + c.getFechaInicio() + "," + c.getFechaFin() + ","
+                        + c.getEstado() + "," + (c.getCupoMaximo() != null ? c.getCupoMaximo() : "") + ","
+                        + (c.getLatitud() != null ? c.getLatitud() : "") + "," + (c.getLongitud() != null ? c.getLongitud() : ""));
+    }
+
+    private <T> void exportar(Formato formato, OutputStream salida, String cabecera,
+                              BiFunction<Long, Pageable, List<T>> consultarPagina, Function<T, Long> id,
+                              Function<T, String> filaCsv) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            escritor.write(cabecera);
+            escritor.write('\n');
+        }
+
+        Long despuesDe = 0L;
+        List<T> pagina;
+        do {
+            pagina = consultarPagina.apply(despuesDe, PageRequest.of(0, tamanoPagina));
+            for (T fila : pagina) {
+                escritor.write(formato == Formato.CSV ? filaCsv.apply(fila) : objectMapper.writeValueAsString(fila));
+                escritor.write('\n');
+            }
+            if (!pagina.isEmpty()) {
+                despuesDe = id.apply(pagina.get(pagina.size() - 1));
+            }
+            escritor.flush();
+        } while (pagina.size() == tamanoPagina);
+    }
+}
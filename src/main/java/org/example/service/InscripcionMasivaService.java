@@ -0,0 +1,210 @@
+package org.example.service;
+
+import org.example.dto.InscritoDTO;
+import org.example.dto.ResultadoImportacionDTO;
+import org.example.event.VoluntariosInscritosEnBloque;
+import org.example.model.Campaña;
+import org.example.repository.CampañaRepository;
+import org.example.repository.InscripcionRepository;
+import org.example.repository.UsuarioRepository;
+import org.example.util.CsvUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación y exportación masiva de las inscripciones de una campaña en CSV.
+ * Ambas trabajan por lotes sobre el flujo de la petición o de la respuesta, así que la memoria usada no depende
+ * del tamaño del fichero: la importación resuelve cada lote de identificadores con consultas IN, reserva las
+ * plazas y lo inserta con un lote JDBC en su propia transacción; la exportación pagina por clave. */
+@Service
+public class InscripcionMasivaService {
+
+    // Inserta la inscripción si no existe (otra petición pudo inscribir al voluntario entre la comprobación y el lote)
+    private static final String INSERTAR_SI_NO_EXISTE =
+            "MERGE INTO campana_voluntarios c " +
+            "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) AS s(campana_id, voluntario_id) " +
+            "ON c.campana_id = s.campana_id AND c.voluntario_id = s.voluntario_id " +
+            "WHEN NOT MATCHED THEN INSERT (campana_id, voluntario_id) VALUES (s.campana_id, s.voluntario_id)";
+
+    private static final Set<String> CABECERAS = Set.of("nombreusuario", "usuario", "email", "correo");
+
+    private static final int NO_ENCONTRADOS_MAXIMO = 100;
+
+    private static final String CABECERA_EXPORTACION = "id,nombreUsuario,nombre,apellido,email,telefono";
+
+    private final CampañaRepository campañaRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final InscripcionRepository inscripcionRepository;
+    private final CampañaService campañaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inscripciones.importacion.tamano-lote:500}")
+    private int tamanoLote;
+
+    @Value("${inscripciones.exportacion.tamano-pagina:1000}")
+    private int tamanoPaginaExportacion;
+
+    public InscripcionMasivaService(CampañaRepository campañaRepository, UsuarioRepository usuarioRepository,
+                                    InscripcionRepository inscripcionRepository, CampañaService campañaService,
+                                    JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.campañaRepository = campañaRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.inscripcionRepository = inscripcionRepository;
+        this.campañaService = campañaService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Inscribe en una campaña a los voluntarios de un CSV con un nombre de usuario o email por línea (primera
+     * columna; se admite una cabecera). Cada lote se confirma por separado: si la importación se corta, los lotes
+     * anteriores quedan inscritos y repetirla es seguro (los ya inscritos se cuentan como tales).
+     * Cada voluntario inscrito recibe una única notificación.
+     * @throws RuntimeException si la campaña no existe.
+     */
+    public ResultadoImportacionDTO importar(Long idCampaña, InputStream csv) throws IOException {
+        Campaña campaña = campañaRepository.findById(idCampaña)
+                .orElseThrow(() -> new RuntimeException("Campaña no encontrada con ID: " + idCampaña));
+
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+        BufferedReader lector = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        Set<String> lote = new LinkedHashSet<>();
+        boolean primeraLinea = true;
+        String linea;
+        while ((linea = lector.readLine()) != null) {
+            String identificador = CsvUtil.primeraColumna(linea);
+            if (primeraLinea) {
+                primeraLinea = false;
+                identificador = identificador.replace("\uFEFF", ""); // BOM de las hojas de cálculo
+                if (CABECERAS.contains(identificador.toLowerCase())) {
+                    continue;
+                }
+            }
+            if (identificador.isEmpty()) {
+                continue;
+            }
+            resultado.setProcesados(resultado.getProcesados() + 1);
+            lote.add(identificador);
+            if (lote.size() >= tamanoLote) {
+                procesarLote(campaña, lote, resultado);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            procesarLote(campaña, lote, resultado);
+        }
+        return resultado;
+    }
+
+    private void procesarLote(Campaña campaña, Set<String> identificadores, ResultadoImportacionDTO resultado) {
+        List<String> nombresUsuario = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        identificadores.forEach(id -> (id.contains("@") ? emails : nombresUsuario).add(id));
+
+        Map<String, Long> encontrados = new HashMap<>();
+        if (!nombresUsuario.isEmpty()) {
+            usuarioRepository.findVoluntariosPorNombreUsuario(nombresUsuario)
+                    .forEach(v -> encontrados.put(v.getIdentificador(), v.getId()));
+        }
+        if (!emails.isEmpty()) {
+            usuarioRepository.findVoluntariosPorEmail(emails)
+                    .forEach(v -> encontrados.put(v.getIdentificador(), v.getId()));
+        }
+        for (String identificador : identificadores) {
+            if (!encontrados.containsKey(identificador)) {
+                resultado.setNoEncontrados(resultado.getNoEncontrados() + 1);
+                if (resultado.getIdentificadoresNoEncontrados().size() < NO_ENCONTRADOS_MAXIMO) {
+                    resultado.getIdentificadoresNoEncontrados().add(identificador);
+                }
+            }
+        }
+        // Un mismo voluntario puede aparecer por nombre de usuario y por email
+        Set<Long> idsVoluntarios = new LinkedHashSet<>(encontrados.values());
+        if (idsVoluntarios.isEmpty()) {
+            return;
+        }
+
+        Long idCampaña = campaña.getId();
+        ResultadoLote resultadoLote = transactionTemplate.execute(status -> {
+            int encontradosEnLote = idsVoluntarios.size();
+            idsVoluntarios.removeAll(inscripcionRepository.findIdsVoluntariosInscritosEntre(idCampaña, idsVoluntarios));
+            int plazas = campañaService.reservarPlazas(idCampaña, idsVoluntarios.size());
+            List<Long> candidatos = idsVoluntarios.stream().limit(plazas).toList();
+
+            int[][] filas = jdbcTemplate.batchUpdate(INSERTAR_SI_NO_EXISTE, candidatos, candidatos.size(),
+                    (ps, idVoluntario) -> {
+                        ps.setLong(1, idCampaña);
+                        ps.setLong(2, idVoluntario);
+                    });
+            List<Long> insertados = new ArrayList<>();
+            for (int i = 0; i < candidatos.size(); i++) {
+                if (filas[0][i] > 0) {
+                    insertados.add(candidatos.get(i));
+                }
+            }
+            campañaService.liberarPlazas(idCampaña, plazas - insertados.size());
+            if (!insertados.isEmpty()) {
+                eventPublisher.publishEvent(new VoluntariosInscritosEnBloque(idCampaña, campaña.getNombre(), insertados));
+            }
+            int sinPlaza = idsVoluntarios.size() - plazas;
+            return new ResultadoLote(insertados.size(), encontradosEnLote - insertados.size() - sinPlaza, sinPlaza);
+        });
+
+        resultado.setInscritos(resultado.getInscritos() + resultadoLote.inscritos());
+        resultado.setYaInscritos(resultado.getYaInscritos() + resultadoLote.yaInscritos());
+        resultado.setSinPlaza(resultado.getSinPlaza() + resultadoLote.sinPlaza());
+    }
+
+    private record ResultadoLote(int inscritos, int yaInscritos, int sinPlaza) {
+    }
+
+    /**
+     * Escribe en 'salida' los inscritos de una campaña en CSV, página a página.
+     */
+    public void exportar(Long idCampaña, OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        escritor.write(CABECERA_EXPORTACION);
+        escritor.write('\n');
+
+        Long despuesDe = 0L;
+        List<InscritoDTO> pagina;
+        do {
+            pagina = inscripcionRepository.findInscritosDespuesDe(idCampaña, despuesDe,
+                    PageRequest.of(0, tamanoPaginaExportacion));
+            for (InscritoDTO inscrito : pagina) {
+                escritor.write(inscrito.getId() + "," + CsvUtil.escapar(inscrito.getNombreUsuario()) + ","
+                        + CsvUtil.escapar(inscrito.getNombre()) + "," + CsvUtil.escapar(inscrito.getApellido()) + ","
+                        + CsvUtil.escapar(inscrito.getEmail()) + "," + CsvUtil.escapar(inscrito.getTelefono()) + "\n");
+            }
+            if (!pagina.isEmpty()) {
+                despuesDe = pagina.get(pagina.size() - 1).getId();
+            }
+            escritor.flush();
+        } while (pagina.size() == tamanoPaginaExportacion);
+    }
+}
@@ -1,28 +1,188 @@
 package org.example.service;
 
+import org.example.dto.PaginaCursorDTO;
+import org.example.event.NotificacionesCreadas;
 import org.example.model.Notificacion;
+import org.example.model.PlantillaNotificacion;
 import org.example.repository.NotificacionRepository;
+import org.example.repository.PlantillaNotificacionRepository;
+import org.example.util.CursorUtil;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class NotificacionService {
 
+    private static final String INSERT_NOTIFICACION =
+            "INSERT INTO notificaciones (id_usuario, id_plantilla, fecha_creacion, leida) VALUES (?, ?, ?, FALSE)";
+
+    private static final String INCREMENTAR_CONTADOR =
+            "UPDATE contadores_notificaciones SET no_leidas = no_leidas + ? WHERE id_usuario = ?";
+
+    // Crea el contador de un usuario que aún no lo tiene a partir del recuento real (que ya incluye los cambios de
+    // la transacción actual), así los usuarios anteriores al contador quedan correctos. Si ya existe, suma 'delta'.
+    private static final String CREAR_CONTADOR =
+            "MERGE INTO contadores_notificaciones c " +
+            "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) AS s(id_usuario, delta) ON c.id_usuario = s.id_usuario " +
+            "WHEN MATCHED THEN UPDATE SET no_leidas = c.no_leidas + s.delta " +
+            "WHEN NOT MATCHED THEN INSERT (id_usuario, no_leidas) VALUES (s.id_usuario, " +
+            "(SELECT COUNT(*) FROM notificaciones n WHERE n.id_usuario = s.id_usuario AND n.leida = FALSE))";
+
+    private static final String SELECT_CONTADOR = "SELECT no_leidas FROM contadores_notificaciones WHERE id_usuario = ?";
+
+    private static final int TAMANO_PAGINA_MAXIMO = 100;
+
+    private static final int MARCADO_MASIVO_MAXIMO = 1000;
+
     private final NotificacionRepository notificacionRepository;
+    private final PlantillaNotificacionRepository plantillaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public NotificacionService(NotificacionRepository notificacionRepository) {
+    public NotificacionService(NotificacionRepository notificacionRepository,
+                               PlantillaNotificacionRepository plantillaRepository, JdbcTemplate jdbcTemplate,
+                               ApplicationEventPublisher eventPublisher) {
         this.notificacionRepository = notificacionRepository;
+        this.plantillaRepository = plantillaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Notificacion> getNotificacionesByUsuarioId(Long idUsuario) {
         // Ordena por fecha de creación descendente para mostrar las más recientes primero
-        return notificacionRepository.findByIdUsuarioOrderByFechaCreacionDesc(idUsuario);
+        return renderizar(notificacionRepository.findByIdUsuarioOrderByFechaCreacionDesc(idUsuario));
+    }
+
+    /**
+     * Obtiene una página de la bandeja de un usuario, de la más reciente a la más antigua.
+     * @param cursor El 'siguienteCursor' de la página anterior, o null para la primera página.
+     * @param tamano Número máximo de notificaciones (se limita a TAMANO_PAGINA_MAXIMO).
+     * @throws IllegalArgumentException si el cursor no es válido.
+     */
+    public PaginaCursorDTO<Notificacion> getPaginaNotificaciones(Long idUsuario, String cursor, int tamano) {
+        int limite = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        // Se pide un elemento de más para saber si existe una página siguiente
+        PageRequest pagina = PageRequest.of(0, limite + 1);
+
+        List<Notificacion> notificaciones;
+        if (cursor == null || cursor.isBlank()) {
+            notificaciones = notificacionRepository.findByIdUsuarioOrderByFechaCreacionDescIdDesc(idUsuario, pagina);
+        } else {
+            CursorUtil.Posicion posicion = CursorUtil.decodificar(cursor);
+            notificaciones = notificacionRepository.findPaginaAnteriorA(idUsuario, posicion.fecha(), posicion.id(), pagina);
+        }
+
+        String siguienteCursor = null;
+        if (notificaciones.size() > limite) {
+            notificaciones = notificaciones.subList(0, limite);
+            Notificacion ultima = notificaciones.get(limite - 1);
+            siguienteCursor = CursorUtil.codificar(ultima.getFechaCreacion(), ultima.getId());
+        }
+        return new PaginaCursorDTO<>(renderizar(notificaciones), siguienteCursor);
+    }
+
+    /**
+     * Obtiene las notificaciones de un usuario posteriores a un ID, de la más antigua a la más reciente.
+     * @param despuesDeId El último ID que el cliente ya tiene.
+     * @param excluidas IDs posteriores que el cliente también tiene ya.
+     * @param limite Número máximo de notificaciones.
+     */
+    public List<Notificacion> getNotificacionesPosterioresA(Long idUsuario, Long despuesDeId, Collection<Long> excluidas,
+                                                            int limite) {
+        PageRequest pagina = PageRequest.of(0, limite);
+        return renderizar(excluidas.isEmpty()
+                ? notificacionRepository.findByIdUsuarioAndIdGreaterThanOrderByIdAsc(idUsuario, despuesDeId, pagina)
+                : notificacionRepository.findPosterioresAExcluyendo(idUsuario, despuesDeId, excluidas, pagina));
+    }
+
+    /**
+     * ID desde el que reanudar el envío a un cliente que ha recibido hasta 'ultimoIdRecibido'. Los IDs se asignan al
+     * insertar, pero los lotes de notificaciones confirman en cualquier orden: el cliente pudo no recibir alguna de ID
+     * menor confirmada después. Se retrocede hasta la última notificación creada dos márgenes antes que la recibida:
+     * 'margen' es lo que tarda como mucho un lote en confirmarse, así que esa y todas las de ID menor ya estaban
+     * confirmadas cuando se leyó la recibida y se enviaron antes que ella. Alguna notificación puede enviarse dos veces.
+     */
+    public long getIdReanudacion(Long idUsuario, long ultimoIdRecibido, Duration margen) {
+        if (ultimoIdRecibido <= 0) {
+            return 0L;
+        }
+        LocalDateTime fecha = notificacionRepository.findFechaCreacion(idUsuario, ultimoIdRecibido);
+        List<Long> anteriores = notificacionRepository.findIdsAnterioresA(idUsuario,
+                (fecha != null ? fecha : LocalDateTime.now()).minus(margen.multipliedBy(2)), PageRequest.of(0, 1));
+        return anteriores.isEmpty() ? 0L : Math.min(anteriores.get(0), ultimoIdRecibido);
+    }
+
+    /**
+     * @return El ID de la notificación más reciente del usuario, o 0 si no tiene ninguna.
+     */
+    public long getUltimoIdNotificacion(Long idUsuario) {
+        Long ultimoId = notificacionRepository.findUltimoIdByIdUsuario(idUsuario);
+        return ultimoId != null ? ultimoId : 0L;
+    }
+
+    /**
+     * Devuelve el número de notificaciones no leídas de un usuario leyendo su contador.
+     */
+    @Transactional
+    public long contarNoLeidas(Long idUsuario) {
+        List<Long> contador = jdbcTemplate.queryForList(SELECT_CONTADOR, Long.class, idUsuario);
+        if (!contador.isEmpty()) {
+            return contador.get(0);
+        }
+        crearContador(idUsuario, 0); // Primera consulta: inicializa el contador desde la tabla
+        return jdbcTemplate.queryForObject(SELECT_CONTADOR, Long.class, idUsuario);
+    }
+
+    public PlantillaNotificacion crearPlantilla(String titulo, String mensaje) {
+        PlantillaNotificacion plantilla = new PlantillaNotificacion();
+        plantilla.setTitulo(titulo);
+        plantilla.setMensaje(mensaje);
+        plantilla.setFechaCreacion(LocalDateTime.now());
+        return plantillaRepository.save(plantilla);
     }
 
-    public Notificacion crearNotificacion(Notificacion notificacion) {
-        return notificacionRepository.save(notificacion);
+    /**
+     * Inserta una notificación por destinatario, todas apuntando a la misma plantilla, en un único lote JDBC.
+     * Evita pasar por el contexto de persistencia: con IDENTITY, Hibernate no agrupa los INSERT.
+     * @param idsUsuario Los IDs de los destinatarios.
+     * @param idPlantilla La plantilla con el título y el mensaje.
+     * @return El número de notificaciones insertadas.
+     */
+    @Transactional
+    public int crearNotificacionesEnLote(List<Long> idsUsuario, Long idPlantilla) {
+        Timestamp fechaCreacion = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICACION, idsUsuario, idsUsuario.size(), (ps, idUsuario) -> {
+            ps.setLong(1, idUsuario);
+            ps.setLong(2, idPlantilla);
+            ps.setTimestamp(3, fechaCreacion);
+        });
+        int[][] actualizados = jdbcTemplate.batchUpdate(INCREMENTAR_CONTADOR, idsUsuario, idsUsuario.size(), (ps, idUsuario) -> {
+            ps.setLong(1, 1);
+            ps.setLong(2, idUsuario);
+        });
+        for (int i = 0; i < idsUsuario.size(); i++) {
+            if (actualizados[0][i] == 0) {
+                crearContador(idsUsuario.get(i), 1);
+            }
+        }
+        eventPublisher.publishEvent(new NotificacionesCreadas(idsUsuario));
+        return idsUsuario.size();
     }
 
     /**
@@ -43,8 +203,94 @@ public class NotificacionService {
             throw new SecurityException("No tienes permiso para marcar esta notificación como leída.");
         }
 
-        notificacion.setLeida(true); // Marcar como leída
-        return notificacionRepository.save(notificacion);
+        // UPDATE condicional: solo descuenta del contador quien realmente cambió 'leida' de false a true
+        if (notificacionRepository.marcarLeida(idNotificacion) > 0) {
+            ajustarContador(authenticatedUserId, -1);
+        }
+        notificacion.setLeida(true);
+        return renderizar(List.of(notificacion)).get(0);
+    }
+
+    /**
+     * Marca como leídas todas las notificaciones del usuario autenticado con ID menor o igual que 'hastaId'
+     * (todas si es null), con un único UPDATE.
+     * @param hastaId El ID de la notificación más reciente que el usuario ha visto; evita marcar las que llegaron después.
+     * @return El número de notificaciones que pasaron a leídas.
+     */
+    @Transactional
+    public int marcarTodasLeidas(Long authenticatedUserId, Long hastaId) {
+        int marcadas = notificacionRepository.marcarLeidasHasta(authenticatedUserId, hastaId != null ? hastaId : Long.MAX_VALUE);
+        if (marcadas > 0) {
+            ajustarContador(authenticatedUserId, -marcadas);
+        }
+        return marcadas;
+    }
+
+    /**
+     * Marca como leídas varias notificaciones con un único UPDATE.
+     * Aplica las mismas reglas que marcarLeida a cada una: todas deben existir y pertenecer al usuario autenticado.
+     * @return El número de notificaciones que pasaron a leídas (las ya leídas no cuentan).
+     * @throws IllegalArgumentException si la lista está vacía o supera MARCADO_MASIVO_MAXIMO.
+     * @throws RuntimeException si alguna notificación no se encuentra.
+     * @throws SecurityException si alguna notificación pertenece a otro usuario.
+     */
+    @Transactional
+    public int marcarLeidas(Collection<Long> idsNotificacion, Long authenticatedUserId) {
+        Set<Long> ids = new HashSet<>(idsNotificacion);
+        if (ids.isEmpty() || ids.size() > MARCADO_MASIVO_MAXIMO) {
+            throw new IllegalArgumentException("Se deben indicar entre 1 y " + MARCADO_MASIVO_MAXIMO + " notificaciones.");
+        }
+        if (notificacionRepository.countByIdIn(ids) != ids.size()) {
+            throw new RuntimeException("Alguna de las notificaciones indicadas no existe.");
+        }
+        if (notificacionRepository.countByIdInAndIdUsuarioNot(ids, authenticatedUserId) > 0) {
+            throw new SecurityException("No tienes permiso para marcar estas notificaciones como leídas.");
+        }
+
+        int marcadas = notificacionRepository.marcarLeidas(authenticatedUserId, ids);
+        if (marcadas > 0) {
+            ajustarContador(authenticatedUserId, -marcadas);
+        }
+        return marcadas;
     }
 
-}
\ No newline at end of file
+    /**
+     * Rellena el título y el mensaje de las notificaciones que referencian una plantilla,
+     * cargando cada plantilla distinta una sola vez.
+     */
+    private List<Notificacion> renderizar(List<Notificacion> notificaciones) {
+        Set<Long> idsPlantilla = notificaciones.stream()
+                .map(Notificacion::getIdPlantilla)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (idsPlantilla.isEmpty()) {
+            return notificaciones;
+        }
+
+        Map<Long, PlantillaNotificacion> plantillas = plantillaRepository.findAllById(idsPlantilla).stream()
+                .collect(Collectors.toMap(PlantillaNotificacion::getId, Function.identity()));
+        for (Notificacion notificacion : notificaciones) {
+            PlantillaNotificacion plantilla = plantillas.get(notificacion.getIdPlantilla());
+            if (plantilla != null) {
+                notificacion.setTitulo(plantilla.getTitulo());
+                notificacion.setMensaje(plantilla.getMensaje());
+            }
+        }
+        return notificaciones;
+    }
+
+    private void ajustarContador(Long idUsuario, long delta) {
+        if (jdbcTemplate.update(INCREMENTAR_CONTADOR, delta, idUsuario) == 0) {
+            crearContador(idUsuario, delta);
+        }
+    }
+
+    private void crearContador(Long idUsuario, long delta) {
+        try {
+            jdbcTemplate.update(CREAR_CONTADOR, idUsuario, delta);
+        } catch (DuplicateKeyException e) {
+            // Otra transacción creó la fila del contador a la vez; ahora existe y el MERGE solo suma 'delta'
+            jdbcTemplate.update(CREAR_CONTADOR, idUsuario, delta);
+        }
+    }
+}
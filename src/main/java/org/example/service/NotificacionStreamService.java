@@ -0,0 +1,284 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.event.NotificacionesCreadas;
+import org.example.model.Notificacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Empuja las notificaciones nuevas a los clientes conectados por Server-Sent Events.
+ * Las conexiones son asíncronas (no ocupan un hilo del servidor mientras están ociosas). Cada una tiene una cola
+ * acotada que drena un único hilo de 'sseExecutor' a la vez, por turnos, y que se rellena desde la base de datos a
+ * medida que se vacía hasta ponerse al día. Si un cliente lento llena la cola o no lee en el plazo de escritura del
+ * servidor (server.tomcat.connection-timeout), se cierra su conexión y el cliente se reconecta indicando la última
+ * notificación recibida, a partir de la cual se reenvía lo que falte.
+ * Los IDs se asignan al insertar, pero los lotes confirman en cualquier orden: una notificación puede hacerse visible
+ * después de otra de ID mayor ya enviada. Por eso cada conexión recuerda las notificaciones enviadas durante el margen
+ * de confirmación de un lote y sigue consultando por detrás de ellas; al reconectar se retrocede ese mismo margen, así
+ * que alguna notificación puede enviarse dos veces (entrega al menos una vez). */
+@Service
+public class NotificacionStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificacionStreamService.class);
+
+    private static final long REINTENTO_CLIENTE_MS = 5000;
+
+    // Huecos de la cola que no se llenan con notificaciones, para los comentarios de conexión y heartbeat
+    private static final int HUECOS_RESERVADOS = 2;
+
+    private final NotificacionService notificacionService;
+    private final Executor sseExecutor;
+    private final Map<Long, List<Conexion>> conexionesPorUsuario = new ConcurrentHashMap<>();
+
+    @Value("${notificaciones.stream.capacidad-cola:100}")
+    private int capacidadCola;
+
+    @Value("${notificaciones.stream.conexiones-por-usuario:5}")
+    private int maxConexionesPorUsuario;
+
+    @Value("${notificaciones.stream.duracion-minutos:30}")
+    private long duracionMinutos;
+
+    @Value("${notificaciones.stream.margen-confirmacion-segundos:60}")
+    private long margenConfirmacionSegundos;
+
+    public NotificacionStreamService(NotificacionService notificacionService,
+                                     @Qualifier("sseExecutor") Executor sseExecutor,
+                                     MeterRegistry meterRegistry) {
+        this.notificacionService = notificacionService;
+        this.sseExecutor = sseExecutor;
+
+        Gauge.builder("notificaciones.stream.conexiones", conexionesPorUsuario,
+                        mapa -> mapa.values().stream().mapToInt(List::size).sum())
+                .description("Conexiones SSE abiertas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abre un stream de notificaciones para un usuario.
+     * @param ultimoIdRecibido Valor de Last-Event-ID al reconectar: se reenvían las notificaciones posteriores.
+     *                         Si es null, solo se enviarán las que se creen a partir de ahora (y las recientes que
+     *                         aún podrían tener por delante una notificación sin confirmar).
+     */
+    public SseEmitter conectar(Long idUsuario, Long ultimoIdRecibido) {
+        SseEmitter emitter = new SseEmitter(Duration.ofMinutes(duracionMinutos).toMillis());
+        long ultimoId = ultimoIdRecibido != null ? ultimoIdRecibido : notificacionService.getUltimoIdNotificacion(idUsuario);
+        long desde = notificacionService.getIdReanudacion(idUsuario, ultimoId,
+                Duration.ofSeconds(margenConfirmacionSegundos));
+        Conexion conexion = new Conexion(idUsuario, emitter, capacidadCola, desde);
+
+        emitter.onCompletion(() -> quitar(conexion));
+        emitter.onTimeout(() -> cerrar(conexion));
+        emitter.onError(error -> quitar(conexion));
+
+        List<Conexion> conexiones = conexionesPorUsuario.compute(idUsuario, (id, actuales) -> {
+            List<Conexion> lista = actuales != null ? actuales : new CopyOnWriteArrayList<>();
+            lista.add(conexion);
+            return lista;
+        });
+        // Limita las pestañas abiertas por usuario: se cierra la conexión más antigua
+        while (conexiones.size() > maxConexionesPorUsuario) {
+            cerrar(conexiones.get(0));
+        }
+
+        conexion.pendientes.set(true); // Lo posterior a 'desde' se envía al drenar la cola
+        encolar(conexion, SseEmitter.event().comment("conectado").reconnectTime(REINTENTO_CLIENTE_MS));
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onNotificacionesCreadas(NotificacionesCreadas evento) {
+        for (Long idUsuario : evento.idsUsuario()) {
+            List<Conexion> conexiones = conexionesPorUsuario.get(idUsuario);
+            if (conexiones != null) {
+                conexiones.forEach(conexion -> {
+                    conexion.pendientes.set(true);
+                    programarEnvio(conexion);
+                });
+            }
+        }
+    }
+
+    // Mantiene vivas las conexiones ociosas a través de proxies y detecta clientes desconectados.
+    @Scheduled(fixedRateString = "${notificaciones.stream.heartbeat-ms:20000}")
+    public void enviarHeartbeat() {
+        conexionesPorUsuario.values().forEach(conexiones ->
+                conexiones.forEach(conexion -> encolar(conexion, SseEmitter.event().comment("ping"))));
+    }
+
+    // Encola las siguientes notificaciones pendientes que caben en la cola. Solo la llama el hilo que drena la
+    // conexión; si la página sale completa, queda marcada para cargar la siguiente cuando la cola se vacíe.
+    private void cargarNuevas(Conexion conexion) {
+        int limite = conexion.cola.remainingCapacity() - HUECOS_RESERVADOS;
+        if (limite <= 0) {
+            return;
+        }
+        consolidar(conexion);
+        long inicio = System.currentTimeMillis();
+        conexion.pendientes.set(false); // Antes de consultar: una notificación posterior lo vuelve a marcar
+        List<Notificacion> nuevas = notificacionService.getNotificacionesPosterioresA(
+                conexion.idUsuario, conexion.cursor, conexion.enviadas.keySet(), limite);
+        long margen = Duration.ofSeconds(margenConfirmacionSegundos).toMillis();
+        long leidas = System.currentTimeMillis();
+        for (Notificacion notificacion : nuevas) {
+            encolar(conexion, SseEmitter.event()
+                    .id(String.valueOf(notificacion.getId()))
+                    .name("notificacion")
+                    .data(notificacion, MediaType.APPLICATION_JSON));
+            // Se insertó antes de leerla y como muy tarde un margen después de empezar su lote; a partir de ahí
+            // cualquier notificación de ID menor ya está confirmada
+            long creada = notificacion.getFechaCreacion().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            conexion.enviadas.put(notificacion.getId(), Math.min(leidas, creada + margen) + margen);
+        }
+        conexion.inicioUltimaCarga = inicio;
+        conexion.alcanceUltimaCarga = nuevas.size() == limite ? nuevas.get(nuevas.size() - 1).getId() : Long.MAX_VALUE;
+        if (nuevas.size() == limite) {
+            conexion.pendientes.set(true);
+        }
+    }
+
+    // Olvida las notificaciones enviadas que ya no pueden tener por detrás ninguna sin ver: las de ID menor estaban
+    // confirmadas al empezar la última carga y esta llegó hasta ellas. El cursor avanza hasta la mayor.
+    private void consolidar(Conexion conexion) {
+        long cursor = conexion.cursor;
+        for (Map.Entry<Long, Long> enviada : conexion.enviadas.entrySet()) {
+            if (enviada.getValue() < conexion.inicioUltimaCarga && enviada.getKey() <= conexion.alcanceUltimaCarga) {
+                cursor = Math.max(cursor, enviada.getKey());
+            }
+        }
+        long nuevoCursor = cursor;
+        conexion.enviadas.keySet().removeIf(id -> id <= nuevoCursor);
+        conexion.cursor = nuevoCursor;
+    }
+
+    private void encolar(Conexion conexion, SseEmitter.SseEventBuilder evento) {
+        if (conexion.cerrada.get()) {
+            return;
+        }
+        if (!conexion.cola.offer(evento)) {
+            // Cliente demasiado lento: se corta y se reconectará con Last-Event-ID
+            log.debug("Cola SSE llena para el usuario {}; se cierra la conexión", conexion.idUsuario);
+            cerrar(conexion);
+            return;
+        }
+        programarEnvio(conexion);
+    }
+
+    private void programarEnvio(Conexion conexion) {
+        if (conexion.cerrada.get() || !conexion.enviando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sseExecutor.execute(() -> drenar(conexion));
+        } catch (TaskRejectedException e) {
+            // Demasiadas conexiones esperando hilo: se corta esta y se reconectará con Last-Event-ID
+            log.debug("Cola de envíos SSE llena; se cierra la conexión del usuario {}", conexion.idUsuario);
+            conexion.enviando.set(false);
+            cerrar(conexion);
+        }
+    }
+
+    private void drenar(Conexion conexion) {
+        try {
+            // Como mucho una cola completa por turno, para no acaparar el hilo frente al resto de conexiones
+            for (int enviados = 0; enviados < capacidadCola && !conexion.cerrada.get(); enviados++) {
+                SseEmitter.SseEventBuilder evento = conexion.cola.poll();
+                if (evento == null && conexion.pendientes.get()) {
+                    cargarNuevas(conexion);
+                    evento = conexion.cola.poll();
+                }
+                if (evento == null) {
+                    break;
+                }
+                conexion.emitter.send(evento);
+            }
+        } catch (IOException | IllegalStateException e) {
+            cerrar(conexion); // El cliente se desconectó o no leyó a tiempo
+        } catch (RuntimeException e) {
+            log.warn("Error enviando notificaciones SSE al usuario {}", conexion.idUsuario, e);
+            cerrar(conexion);
+        } finally {
+            conexion.enviando.set(false);
+            if (conexion.cerrada.get()) {
+                completar(conexion);
+            } else if (!conexion.cola.isEmpty() || conexion.pendientes.get()) {
+                programarEnvio(conexion);
+            }
+        }
+    }
+
+    private void cerrar(Conexion conexion) {
+        if (conexion.cerrada.compareAndSet(false, true)) {
+            quitar(conexion);
+            conexion.cola.clear();
+            // send() y complete() comparten el monitor del emisor: con un envío en curso (que puede estar bloqueado
+            // en un cliente que no lee) completa el emisor el hilo que drena, al terminar, y no quien cierra
+            if (!conexion.enviando.get()) {
+                completar(conexion);
+            }
+        }
+    }
+
+    private void completar(Conexion conexion) {
+        try {
+            conexion.emitter.complete();
+        } catch (IllegalStateException e) {
+            // Ya estaba completado
+        }
+    }
+
+    private void quitar(Conexion conexion) {
+        conexion.cerrada.set(true);
+        conexionesPorUsuario.computeIfPresent(conexion.idUsuario, (id, conexiones) -> {
+            conexiones.remove(conexion);
+            return conexiones.isEmpty() ? null : conexiones;
+        });
+    }
+
+    private static final class Conexion {
+        private final Long idUsuario;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> cola;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private final AtomicBoolean cerrada = new AtomicBoolean();
+        // Hay notificaciones en la base de datos que aún no se han encolado
+        private final AtomicBoolean pendientes = new AtomicBoolean();
+        // El resto solo lo usa el hilo que drena la conexión (uno a la vez).
+        // El cliente tiene todas las notificaciones hasta 'cursor' y, por encima, las de 'enviadas'
+        private long cursor;
+        // ID enviado -> instante (ms) a partir del cual ya no puede confirmarse ninguna notificación de ID menor
+        private final Map<Long, Long> enviadas = new HashMap<>();
+        private long inicioUltimaCarga;
+        private long alcanceUltimaCarga; // Mayor ID que devolvió la última carga si salió completa; si no, sin límite
+
+        private Conexion(Long idUsuario, SseEmitter emitter, int capacidadCola, long cursor) {
+            this.idUsuario = idUsuario;
+            this.emitter = emitter;
+            this.cola = new ArrayBlockingQueue<>(capacidadCola);
+            this.cursor = cursor;
+        }
+    }
+}
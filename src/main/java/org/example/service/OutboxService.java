@@ -0,0 +1,122 @@
+package org.example.service;
+
+import org.example.event.CampañaActualizada;
+import org.example.event.CampañaCreada;
+import org.example.event.CampañaEliminada;
+import org.example.event.InscripcionAnulada;
+import org.example.event.VoluntarioInscrito;
+import org.example.event.VoluntariosInscritosEnBloque;
+import org.example.model.EventoSalida;
+import org.example.model.TipoDestino;
+import org.example.repository.EventoSalidaRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Traduce los eventos de dominio a filas de la tabla de salida de notificaciones.
+ * Se ejecuta de forma síncrona dentro de la transacción de negocio (propagación MANDATORY):
+ * cada operación paga un INSERT pequeño por audiencia en lugar de uno por destinatario (salvo las listas de
+ * usuarios, con una fila por destinatario insertada por lotes), y el DespachadorNotificaciones materializa las
+ * notificaciones en segundo plano. */
+@Service
+public class OutboxService {
+
+    private static final String INSERT_DESTINATARIO =
+            "INSERT INTO evento_salida_destinatarios (evento_id, usuario_id) VALUES (?, ?)";
+
+    private final EventoSalidaRepository eventoSalidaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxService(EventoSalidaRepository eventoSalidaRepository, JdbcTemplate jdbcTemplate) {
+        this.eventoSalidaRepository = eventoSalidaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCampañaCreada(CampañaCreada evento) {
+        registrar("CampañaCreada", TipoDestino.USUARIO, String.valueOf(evento.idAdmin()),
+                "Campaña Creada",
+                "Has creado la campaña: " + evento.nombre() + " en " + evento.ubicacion() + ".");
+        registrar("CampañaCreada", TipoDestino.ROL, "VOLUNTARIO",
+                "¡Nueva Campaña Disponible!",
+                "Se ha publicado una nueva campaña: '" + evento.nombre() + "' en '" + evento.ubicacion() + "'. ¡Inscríbete!");
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCampañaActualizada(CampañaActualizada evento) {
+        registrar("CampañaActualizada", TipoDestino.USUARIO, String.valueOf(evento.idAdmin()),
+                "Campaña Actualizada",
+                "La campaña '" + evento.nombre() + "' ha sido actualizada. Estado anterior: " + evento.estadoAnterior().name()
+                        + ", Nuevo estado: " + evento.estadoNuevo().name() + ".");
+        registrar("CampañaActualizada", TipoDestino.INSCRITOS_CAMPANA, String.valueOf(evento.idCampaña()),
+                "Actualización de Campaña: " + evento.nombre(),
+                "¡Importante! La campaña '" + evento.nombre() + "' ha sido actualizada. Nuevo estado: " + evento.estadoNuevo().name() + ".");
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCampañaEliminada(CampañaEliminada evento) {
+        if (!evento.idsInscritos().isEmpty()) {
+            registrarLista("CampañaEliminada", evento.idsInscritos(),
+                    "Campaña Eliminada: " + evento.nombre(),
+                    "La campaña '" + evento.nombre() + "' en la que estabas inscrito ha sido eliminada.");
+        }
+        registrar("CampañaEliminada", TipoDestino.USUARIO, String.valueOf(evento.idAdmin()),
+                "Campaña Eliminada",
+                "Has eliminado la campaña: '" + evento.nombre() + "'.");
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onVoluntarioInscrito(VoluntarioInscrito evento) {
+        registrar("VoluntarioInscrito", TipoDestino.USUARIO, String.valueOf(evento.idVoluntario()),
+                "¡Inscripción Exitosa!",
+                "Te has inscrito exitosamente en la campaña: '" + evento.nombreCampaña() + "'.");
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onVoluntariosInscritosEnBloque(VoluntariosInscritosEnBloque evento) {
+        registrarLista("VoluntariosInscritosEnBloque", evento.idsVoluntarios(),
+                "¡Inscripción Exitosa!",
+                "Un administrador te ha inscrito en la campaña: '" + evento.nombreCampaña() + "'.");
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onInscripcionAnulada(InscripcionAnulada evento) {
+        registrar("InscripcionAnulada", TipoDestino.USUARIO, String.valueOf(evento.idVoluntario()),
+                "Inscripción Anulada",
+                "Has anulado tu inscripción en la campaña: '" + evento.nombreCampaña() + "'.");
+    }
+
+    private EventoSalida registrar(String tipoEvento, TipoDestino tipoDestino, String destino, String titulo, String mensaje) {
+        EventoSalida evento = new EventoSalida();
+        evento.setTipoEvento(tipoEvento);
+        evento.setTipoDestino(tipoDestino);
+        evento.setDestino(destino);
+        evento.setTitulo(titulo);
+        evento.setMensaje(mensaje);
+        evento.setFechaCreacion(LocalDateTime.now());
+        return eventoSalidaRepository.save(evento);
+    }
+
+    // Los destinatarios van en filas aparte, para que el despachador los lea por lotes sin cargar la lista entera
+    private void registrarLista(String tipoEvento, Collection<Long> idsUsuario, String titulo, String mensaje) {
+        List<Long> destinatarios = idsUsuario.stream().distinct().toList();
+        Long idEvento = registrar(tipoEvento, TipoDestino.LISTA, String.valueOf(destinatarios.size()), titulo, mensaje).getId();
+        jdbcTemplate.batchUpdate(INSERT_DESTINATARIO, destinatarios, destinatarios.size(), (ps, idUsuario) -> {
+            ps.setLong(1, idEvento);
+            ps.setLong(2, idUsuario);
+        });
+    }
+}
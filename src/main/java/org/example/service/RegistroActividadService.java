@@ -0,0 +1,87 @@
+package org.example.service;
+
+import org.example.event.CampañaActualizada;
+import org.example.event.CampañaCreada;
+import org.example.event.InscripcionAnulada;
+import org.example.event.UsuarioRegistrado;
+import org.example.event.VoluntarioInscrito;
+import org.example.event.VoluntariosInscritosEnBloque;
+import org.example.model.EstadoCampaña;
+import org.example.model.TipoActividad;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Añade al registro de actividad las inscripciones, anulaciones, altas de campañas y registros de usuarios.
+ * Como OutboxService, se ejecuta dentro de la transacción de negocio (propagación MANDATORY), así que una
+ * operación revertida no deja rastro; el AgregadorActividad resume el registro en totales diarios. */
+@Service
+public class RegistroActividadService {
+
+    private static final String INSERT_REGISTRO =
+            "INSERT INTO registro_actividad (tipo, fecha, id_campana, id_usuario, agregado) VALUES (?, ?, ?, ?, FALSE)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RegistroActividadService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCampañaCreada(CampañaCreada evento) {
+        registrar(TipoActividad.CAMPANA_CREADA, evento.idCampaña(), null);
+        if (evento.estado() == EstadoCampaña.ACTIVA) {
+            registrar(TipoActividad.CAMPANA_INICIADA, evento.idCampaña(), null);
+        }
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCampañaActualizada(CampañaActualizada evento) {
+        if (evento.estadoNuevo() == EstadoCampaña.ACTIVA && evento.estadoAnterior() != EstadoCampaña.ACTIVA) {
+            registrar(TipoActividad.CAMPANA_INICIADA, evento.idCampaña(), null);
+        }
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onVoluntarioInscrito(VoluntarioInscrito evento) {
+        registrar(TipoActividad.INSCRIPCION, evento.idCampaña(), evento.idVoluntario());
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onVoluntariosInscritosEnBloque(VoluntariosInscritosEnBloque evento) {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_REGISTRO, evento.idsVoluntarios(), evento.idsVoluntarios().size(),
+                (ps, idVoluntario) -> {
+                    ps.setString(1, TipoActividad.INSCRIPCION.name());
+                    ps.setTimestamp(2, ahora);
+                    ps.setLong(3, evento.idCampaña());
+                    ps.setLong(4, idVoluntario);
+                });
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onInscripcionAnulada(InscripcionAnulada evento) {
+        registrar(TipoActividad.ANULACION, evento.idCampaña(), evento.idVoluntario());
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onUsuarioRegistrado(UsuarioRegistrado evento) {
+        registrar(TipoActividad.REGISTRO, null, evento.idUsuario());
+    }
+
+    private void registrar(TipoActividad tipo, Long idCampaña, Long idUsuario) {
+        jdbcTemplate.update(INSERT_REGISTRO, tipo.name(), Timestamp.valueOf(LocalDateTime.now()), idCampaña, idUsuario);
+    }
+}
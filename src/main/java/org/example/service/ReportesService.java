@@ -1,42 +1,214 @@
 package org.example.service;
 
+import org.example.dto.PuntoSerieDTO;
+import org.example.dto.RecuentoEstadoDTO;
+import org.example.dto.RecuentoRolDTO;
 import org.example.dto.ReporteResumenDTO;
+import org.example.dto.SerieActividadDTO;
+import org.example.event.CampañaActualizada;
+import org.example.event.CampañaCreada;
+import org.example.event.CampañaEliminada;
+import org.example.event.UsuarioEliminado;
+import org.example.event.UsuarioRegistrado;
+import org.example.model.ActividadDiaria;
 import org.example.model.EstadoCampaña;
+import org.example.model.TipoActividad;
+import org.example.repository.ActividadDiariaRepository;
 import org.example.repository.CampañaRepository;
 import org.example.repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resumen para el panel de administración. Los totales se mantienen en memoria: los eventos de campañas y
+ * usuarios los ajustan tras el commit, y una reconciliación periódica los recalcula contra la base de datos
+ * para corregir la deriva (cambios hechos fuera de la API, carreras con la propia reconciliación). */
 @Service
 public class ReportesService {
 
+    private static final Logger log = LoggerFactory.getLogger(ReportesService.class);
+
+    private static final String ROL_VOLUNTARIO = "VOLUNTARIO";
+
+    public static final int SERIE_MAXIMA_DIAS = 731;
+
+    /**
+     * Periodo de cada punto de una serie de actividad; las semanas empiezan en lunes.
+     */
+    public enum Agrupacion {
+        DIA, SEMANA, MES;
+
+        LocalDate inicio(LocalDate dia) {
+            return switch (this) {
+                case DIA -> dia;
+                case SEMANA -> dia.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MES -> dia.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate siguiente(LocalDate inicio) {
+            return switch (this) {
+                case DIA -> inicio.plusDays(1);
+                case SEMANA -> inicio.plusWeeks(1);
+                case MES -> inicio.plusMonths(1);
+            };
+        }
+    }
+
     private final CampañaRepository campañaRepository;
     private final UsuarioRepository usuarioRepository;
+    private final ActividadDiariaRepository actividadDiariaRepository;
+
+    private final Map<EstadoCampaña, AtomicLong> campañasPorEstado = new EnumMap<>(EstadoCampaña.class);
+    private final Map<String, AtomicLong> usuariosPorRol = new ConcurrentHashMap<>();
+    // Hasta la primera reconciliación los contadores solo reflejan los eventos recibidos
+    private volatile boolean contadoresCargados = false;
 
     @Autowired
-    public ReportesService(CampañaRepository campañaRepository, UsuarioRepository usuarioRepository) {
+    public ReportesService(CampañaRepository campañaRepository, UsuarioRepository usuarioRepository,
+                           ActividadDiariaRepository actividadDiariaRepository) {
         this.campañaRepository = campañaRepository;
         this.usuarioRepository = usuarioRepository;
+        this.actividadDiariaRepository = actividadDiariaRepository;
+        for (EstadoCampaña estado : EstadoCampaña.values()) {
+            campañasPorEstado.put(estado, new AtomicLong());
+        }
     }
 
     public ReporteResumenDTO generarResumenReporte() {
-        long totalCampanas = campañaRepository.count();
-        // CORRECCIÓN: Pasar los valores del ENUM directamente
-        long campanasActivas = campañaRepository.countByEstado(EstadoCampaña.ACTIVA);
-        long campanasPlanificadas = campañaRepository.countByEstado(EstadoCampaña.PLANIFICADA);
-        long campanasFinalizadas = campañaRepository.countByEstado(EstadoCampaña.FINALIZADA);
+        if (!contadoresCargados) {
+            reconciliar();
+        }
 
-        long totalUsuarios = usuarioRepository.count();
-        long totalVoluntarios = usuarioRepository.countByRol("VOLUNTARIO");
+        Map<EstadoCampaña, Long> porEstado = new EnumMap<>(EstadoCampaña.class);
+        campañasPorEstado.forEach((estado, total) -> porEstado.put(estado, total.get()));
+        Map<String, Long> porRol = new TreeMap<>();
+        usuariosPorRol.forEach((rol, total) -> porRol.put(rol, total.get()));
 
         ReporteResumenDTO resumen = new ReporteResumenDTO();
-        resumen.setTotalCampanas(totalCampanas);
-        resumen.setCampanasActivas(campanasActivas);
-        resumen.setCampanasPlanificadas(campanasPlanificadas);
-        resumen.setCampanasFinalizadas(campanasFinalizadas);
-        resumen.setTotalUsuarios(totalUsuarios);
-        resumen.setTotalVoluntarios(totalVoluntarios);
+        resumen.setTotalCampanas(porEstado.values().stream().mapToLong(Long::longValue).sum());
+        resumen.setCampanasActivas(porEstado.get(EstadoCampaña.ACTIVA));
+        resumen.setCampanasPlanificadas(porEstado.get(EstadoCampaña.PLANIFICADA));
+        resumen.setCampanasFinalizadas(porEstado.get(EstadoCampaña.FINALIZADA));
+        resumen.setTotalUsuarios(porRol.values().stream().mapToLong(Long::longValue).sum());
+        resumen.setTotalVoluntarios(porRol.getOrDefault(ROL_VOLUNTARIO, 0L));
+        resumen.setCampanasPorEstado(porEstado);
+        resumen.setUsuariosPorRol(porRol);
 
         return resumen;
     }
-}
\ No newline at end of file
+
+    /**
+     * Serie de actividad entre dos días (ambos incluidos), leída de los agregados diarios.
+     * Con 'idCampaña' se obtiene la serie de una campaña (solo para inscripciones y anulaciones).
+     * @throws IllegalArgumentException si el rango no es válido o el tipo no admite filtrar por campaña.
+     */
+    public SerieActividadDTO getSerieActividad(TipoActividad tipo, Agrupacion agrupacion, Long idCampaña,
+                                               LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha 'desde' no puede ser posterior a 'hasta'.");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > SERIE_MAXIMA_DIAS) {
+            throw new IllegalArgumentException("El rango no puede superar " + SERIE_MAXIMA_DIAS + " días.");
+        }
+        if (idCampaña != null && tipo != TipoActividad.INSCRIPCION && tipo != TipoActividad.ANULACION) {
+            throw new IllegalArgumentException("Solo las inscripciones y anulaciones se pueden filtrar por campaña.");
+        }
+
+        Map<LocalDate, Long> totales = new LinkedHashMap<>();
+        for (LocalDate periodo = agrupacion.inicio(desde); !periodo.isAfter(hasta); periodo = agrupacion.siguiente(periodo)) {
+            totales.put(periodo, 0L);
+        }
+        Long idSerie = idCampaña != null ? idCampaña : ActividadDiaria.GLOBAL;
+        for (ActividadDiaria agregado : actividadDiariaRepository.findSerie(tipo, idSerie, desde, hasta)) {
+            totales.merge(agrupacion.inicio(agregado.getDia()), agregado.getTotal(), Long::sum);
+        }
+
+        SerieActividadDTO serie = new SerieActividadDTO();
+        serie.setTipo(tipo);
+        serie.setAgrupacion(agrupacion);
+        serie.setIdCampana(idCampaña);
+        serie.setDesde(desde);
+        serie.setHasta(hasta);
+        totales.forEach((periodo, total) -> serie.getPuntos().add(new PuntoSerieDTO(periodo, total)));
+        serie.setTotal(totales.values().stream().mapToLong(Long::longValue).sum());
+        return serie;
+    }
+
+    /**
+     * Recalcula los contadores con una consulta GROUP BY por tabla y registra las diferencias encontradas.
+     */
+    @Scheduled(fixedDelayString = "${reportes.reconciliacion.intervalo-ms:300000}",
+            initialDelayString = "${reportes.reconciliacion.intervalo-ms:300000}")
+    public synchronized void reconciliar() {
+        Map<EstadoCampaña, Long> campañasReales = new EnumMap<>(EstadoCampaña.class);
+        for (RecuentoEstadoDTO recuento : campañaRepository.contarPorEstado()) {
+            campañasReales.put(recuento.getEstado(), recuento.getTotal());
+        }
+        for (EstadoCampaña estado : EstadoCampaña.values()) {
+            corregir("campañas " + estado, campañasPorEstado.get(estado), campañasReales.getOrDefault(estado, 0L));
+        }
+
+        Map<String, Long> usuariosReales = new HashMap<>();
+        for (RecuentoRolDTO recuento : usuarioRepository.contarPorRol()) {
+            usuariosReales.put(recuento.getRol(), recuento.getTotal());
+        }
+        // Los roles que ya no tienen usuarios se quedan a cero
+        usuariosReales.keySet().forEach(rol -> usuariosPorRol.computeIfAbsent(rol, r -> new AtomicLong()));
+        usuariosPorRol.forEach((rol, total) -> corregir("usuarios " + rol, total, usuariosReales.getOrDefault(rol, 0L)));
+        contadoresCargados = true;
+    }
+
+    private void corregir(String contador, AtomicLong valor, long real) {
+        long anterior = valor.getAndSet(real);
+        if (contadoresCargados && anterior != real) {
+            log.warn("Contador de {} corregido: {} -> {}", contador, anterior, real);
+        }
+    }
+
+    // fallbackExecution: los cambios de usuarios se guardan sin una transacción que los envuelva
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCampañaCreada(CampañaCreada evento) {
+        campañasPorEstado.get(evento.estado()).incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCampañaActualizada(CampañaActualizada evento) {
+        if (evento.estadoAnterior() != evento.estadoNuevo()) {
+            campañasPorEstado.get(evento.estadoAnterior()).decrementAndGet();
+            campañasPorEstado.get(evento.estadoNuevo()).incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCampañaEliminada(CampañaEliminada evento) {
+        campañasPorEstado.get(evento.estado()).decrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioRegistrado(UsuarioRegistrado evento) {
+        usuariosPorRol.computeIfAbsent(evento.rol(), rol -> new AtomicLong()).incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioEliminado(UsuarioEliminado evento) {
+        usuariosPorRol.computeIfAbsent(evento.rol(), rol -> new AtomicLong()).decrementAndGet();
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.model.UsuarioAutenticado;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Tickets para abrir el stream SSE de notificaciones. EventSource no puede enviar la cabecera Authorization, así que
+ * el cliente pide con su JWT un ticket aleatorio y lo pasa en la URL del stream: el ticket solo sirve para esa ruta,
+ * caduca en unos segundos y se consume al usarlo, de modo que el JWT nunca aparece en URLs ni en los logs. */
+@Service
+public class TicketStreamService {
+
+    private static final int BYTES_TICKET = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, UsuarioAutenticado> tickets;
+
+    public TicketStreamService(@Value("${notificaciones.stream.ticket-segundos:30}") long ticketSegundos) {
+        this.tickets = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ticketSegundos))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public String emitir(UsuarioAutenticado usuario) {
+        byte[] bytes = new byte[BYTES_TICKET];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        // Sin contraseña ni entidad: lo justo para autenticar el stream y comprobar después la versión del token
+        tickets.put(ticket, new UsuarioAutenticado(usuario.getId(), usuario.getUsername(), "", usuario.getRol(), true,
+                usuario.getVersionToken()));
+        return ticket;
+    }
+
+    /**
+     * @return El usuario para el que se emitió el ticket, o null si no existe, ya se usó o ha caducado.
+     */
+    public UsuarioAutenticado canjear(String ticket) {
+        return tickets.asMap().remove(ticket);
+    }
+}
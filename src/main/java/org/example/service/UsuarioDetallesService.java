@@ -0,0 +1,93 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.model.Usuario;
+import org.example.model.UsuarioAutenticado;
+import org.example.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Carga los usuarios para Spring Security a través de una caché local acotada y con expiración,
+ * de modo que autenticar cada petición no cueste una consulta a la base de datos.
+ * También guarda la versión de token vigente de cada usuario, con la que se revocan los JWT ya emitidos.
+ * Quien modifique o elimine un usuario debe llamar a {@link #invalidar(Usuario)}.
+ */
+@Service
+public class UsuarioDetallesService implements UserDetailsService, UserDetailsPasswordService {
+
+    // Marca en la caché de versiones a los usuarios eliminados o desactivados
+    private static final int VERSION_REVOCADA = -1;
+
+    private final UsuarioRepository usuarioRepository;
+    private final Cache<String, Usuario> cache; // Entidades desacopladas; no se modifican una vez en caché
+    private final Cache<Long, Integer> versionesToken;
+
+    public UsuarioDetallesService(UsuarioRepository usuarioRepository, MeterRegistry meterRegistry,
+                                  @Value("${seguridad.cache-usuarios.tamano-maximo:10000}") long tamanoMaximo,
+                                  @Value("${seguridad.cache-usuarios.ttl-segundos:300}") long ttlSegundos) {
+        this.usuarioRepository = usuarioRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        this.versionesToken = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "usuarios");
+        CaffeineCacheMetrics.monitor(meterRegistry, versionesToken, "versiones-token");
+    }
+
+    @Override
+    public UsuarioAutenticado loadUserByUsername(String username) throws UsernameNotFoundException {
+        // Los usuarios inexistentes no se guardan en la caché
+        Usuario usuario = cache.get(username, nombre -> usuarioRepository.findByNombreUsuario(nombre).orElse(null));
+        if (usuario == null) {
+            throw new UsernameNotFoundException("Usuario no encontrado: " + username);
+        }
+        // Se entrega un principal nuevo: Spring Security borra la contraseña del principal tras autenticar (eraseCredentials)
+        return usuario.toUserDetails();
+    }
+
+    /**
+     * Indica si un token emitido con la versión dada sigue siendo válido: el usuario existe, está activo
+     * y no ha revocado sus tokens desde entonces. Solo consulta la base de datos si la versión no está en caché.
+     */
+    public boolean esVersionTokenVigente(Long idUsuario, int versionToken) {
+        int vigente = versionesToken.get(idUsuario, id -> usuarioRepository.findVersionTokenActivo(id).orElse(VERSION_REVOCADA));
+        return vigente != VERSION_REVOCADA && vigente == versionToken;
+    }
+
+    /**
+     * Guarda el hash recalculado por Spring Security al iniciar sesión cuando el coste de BCrypt configurado
+     * es mayor que el del hash almacenado. No revoca los tokens: la contraseña es la misma.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        usuarioRepository.actualizarContrasena(user.getUsername(), newPassword);
+        cache.invalidate(user.getUsername());
+        UsuarioAutenticado usuario = (UsuarioAutenticado) user;
+        return new UsuarioAutenticado(usuario.getId(), usuario.getUsername(), newPassword, usuario.getRol(),
+                usuario.isEnabled(), usuario.getVersionToken(), usuario.getUsuario());
+    }
+
+    /**
+     * Descarta el usuario de las cachés para que la siguiente petición lea sus datos actualizados.
+     */
+    public void invalidar(Usuario usuario) {
+        cache.invalidate(usuario.getNombreUsuario());
+        versionesToken.invalidate(usuario.getId());
+    }
+}
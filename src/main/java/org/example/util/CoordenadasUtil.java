@@ -0,0 +1,29 @@
+package org.example.util;
+
+/**
+ * Validación de coordenadas geográficas (grados WGS84). */
+public final class CoordenadasUtil {
+
+    private CoordenadasUtil() {
+    }
+
+    /**
+     * Comprueba una posición opcional: se indican la latitud y la longitud o ninguna de las dos.
+     * @throws IllegalArgumentException si solo se indica una o alguna está fuera de rango o no es un número.
+     */
+    public static void validar(Double latitud, Double longitud) {
+        if (latitud == null && longitud == null) {
+            return;
+        }
+        if (latitud == null || longitud == null) {
+            throw new IllegalArgumentException("La latitud y la longitud se indican juntas.");
+        }
+        // Comparaciones en positivo: NaN no cumple ninguna, así que también se rechaza (igual que los infinitos)
+        if (!(latitud >= -90 && latitud <= 90)) {
+            throw new IllegalArgumentException("La latitud debe estar entre -90 y 90: " + latitud);
+        }
+        if (!(longitud >= -180 && longitud <= 180)) {
+            throw new IllegalArgumentException("La longitud debe estar entre -180 y 180: " + longitud);
+        }
+    }
+}
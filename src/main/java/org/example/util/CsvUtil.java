@@ -0,0 +1,43 @@
+package org.example.util;
+
+/**
+ * Lectura y escritura mínima de CSV (RFC 4180): separador coma y comillas dobles para los valores que
+ * contienen comas, comillas o saltos de línea. */
+public final class CsvUtil {
+
+    private CsvUtil() {
+    }
+
+    /**
+     * Escapa un valor para escribirlo como campo CSV. Null se escribe como campo vacío.
+     */
+    public static String escapar(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Devuelve el primer campo de una línea CSV, sin comillas y sin espacios alrededor.
+     */
+    public static String primeraColumna(String linea) {
+        String campo = linea.strip();
+        if (campo.startsWith("\"")) {
+            int cierre = campo.indexOf('"', 1);
+            while (cierre >= 0 && cierre + 1 < campo.length() && campo.charAt(cierre + 1) == '"') {
+                cierre = campo.indexOf('"', cierre + 2);
+            }
+            campo = campo.substring(1, cierre < 0 ? campo.length() : cierre).replace("\"\"", "\"");
+        } else {
+            int coma = campo.indexOf(',');
+            if (coma >= 0) {
+                campo = campo.substring(0, coma);
+            }
+        }
+        return campo.strip();
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Codifica y decodifica los cursores opacos de la paginación por clave.
+ * Un cursor guarda la posición del último elemento devuelto: el valor por el que se ordena (una fecha
+ * o un texto) y su ID (para desempatar). */
+public final class CursorUtil {
+
+    private static final String SEPARADOR = "|";
+
+    private CursorUtil() {
+    }
+
+    public record Posicion(LocalDateTime fecha, Long id) {
+    }
+
+    public record PosicionTexto(String valor, Long id) {
+    }
+
+    public static String codificar(LocalDateTime fecha, Long id) {
+        return codificar(fecha.toString(), id);
+    }
+
+    /**
+     * @throws IllegalArgumentException si el cursor no tiene el formato esperado.
+     */
+    public static Posicion decodificar(String cursor) {
+        PosicionTexto posicion = decodificarTexto(cursor);
+        try {
+            return new Posicion(LocalDateTime.parse(posicion.valor()), posicion.id());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido.", e);
+        }
+    }
+
+    public static String codificar(String valorOrden, Long id) {
+        String valor = valorOrden + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor cuyo valor de orden es un texto arbitrario (puede contener el separador).
+     * @throws IllegalArgumentException si el cursor no tiene el formato esperado.
+     */
+    public static PosicionTexto decodificarTexto(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf(SEPARADOR);
+            return new PosicionTexto(valor.substring(0, separador), Long.valueOf(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido.", e);
+        }
+    }
+}
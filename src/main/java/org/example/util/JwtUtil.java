@@ -1,10 +1,12 @@
 package org.example.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.example.model.UsuarioAutenticado;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -17,17 +19,29 @@ import java.util.function.Function;
 
 /**
  * Clase de utilidad para la generación y validación de JSON Web Tokens (JWT).
+ * La clave y el parser se construyen una sola vez: ambos son inmutables y seguros entre hilos.
  */
 @Component
 public class JwtUtil {
 
-    // La clave secreta para firmar los JWTs, inyectada desde application.properties
-    @Value("${jwt.secret}")
-    private String secret;
+    // Claims con los que el filtro autentica la petición sin cargar el usuario de la base de datos
+    public static final String CLAIM_ROL = "role";
+    public static final String CLAIM_ID_USUARIO = "uid";
+    public static final String CLAIM_VERSION_TOKEN = "ver";
+
+    // Clave HMAC derivada de la clave secreta (jwt.secret, en base64)
+    private final Key signKey;
+
+    private final JwtParser parser;
 
     // Tiempo de validez del token en milisegundos (ej. 24 horas)
-    @Value("${jwt.expiration}")
-    private long expiration;
+    private final long expiration;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret, @Value("${jwt.expiration}") long expiration) {
+        this.signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        this.parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+        this.expiration = expiration;
+    }
 
     /**
      * Extrae el nombre de usuario (subject) del token JWT. */
@@ -49,20 +63,16 @@ public class JwtUtil {
     }
 
     /**
-     * Extrae todos los 'claims' (cuerpo) del token JWT. */
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignKey()) // Establece la clave de firma
-                .build()
-                .parseClaimsJws(token) // Parsea el token
-                .getBody(); // Obtiene el cuerpo (claims)
+     * Verifica la firma y la expiración del token y devuelve todos sus 'claims' (cuerpo).
+     * Quien necesite varios datos del token debe llamar a este método una vez y reutilizar el resultado. */
+    public Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     /**
-     * Verifica si el token JWT ha expirado. */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+     * Verifica si los claims de un token indican que ha expirado. */
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     /**
@@ -70,7 +80,11 @@ public class JwtUtil {
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         // Puedes añadir claims personalizados aquí, por ejemplo, roles del usuario
-        claims.put("role", userDetails.getAuthorities().iterator().next().getAuthority()); // Asume un solo rol principal
+        claims.put(CLAIM_ROL, userDetails.getAuthorities().iterator().next().getAuthority()); // Asume un solo rol principal
+        if (userDetails instanceof UsuarioAutenticado usuario) {
+            claims.put(CLAIM_ID_USUARIO, usuario.getId());
+            claims.put(CLAIM_VERSION_TOKEN, usuario.getVersionToken());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -82,17 +96,17 @@ public class JwtUtil {
                 .setSubject(userName) // Establece el sujeto (nombre de usuario)
                 .setIssuedAt(new Date(System.currentTimeMillis())) // Fecha de emisión
                 .setExpiration(new Date(System.currentTimeMillis() + expiration)) // Fecha de expiración
-                .signWith(getSignKey(), SignatureAlgorithm.HS256) // Firma el token con la clave secreta y algoritmo HS256
+                .signWith(signKey, SignatureAlgorithm.HS256) // Firma el token con la clave secreta y algoritmo HS256
                 .compact(); // Compacta el token a su representación final
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret); // Decodifica la clave de base64
-        return Keys.hmacShaKeyFor(keyBytes); // Genera la clave HMAC SHA
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return validateToken(extractAllClaims(token), userDetails);
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * Valida unos claims ya extraídos con {@link #extractAllClaims(String)}, sin volver a parsear el token. */
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 }
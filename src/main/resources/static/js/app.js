@@ -42,6 +42,8 @@ function actualizarNavegacion() {
         navNotificaciones.style.display = 'block';
         navCerrarSesion.style.display = 'block';
         infoUsuarioSpan.textContent = `Bienvenido, ${usuarioActual.nombreUsuario}`;
+        actualizarContadorNotificaciones();
+        conectarStreamNotificaciones();
 
         // Opciones específicas para el rol de ADMINISTRADOR
         if (usuarioActual.rol === 'ADMIN') {
@@ -191,6 +193,8 @@ async function iniciarSesion(evento) {
         if (respuesta.ok) {
             handleLoginSuccess(datos);
             mostrarMensaje('login-message', '¡Inicio de sesión exitoso!', false);
+        } else if (respuesta.status === 503) {
+            mostrarMensaje('login-message', 'El servidor está atendiendo muchos inicios de sesión. Inténtalo de nuevo en unos segundos.', true);
         } else {
             mostrarMensaje('login-message', datos.message || 'Credenciales inválidas. Inténtalo de nuevo.', true);
         }
@@ -240,6 +244,7 @@ async function cerrarSesion() {
     try {
         localStorage.removeItem('jwtToken');
         usuarioActual = null;
+        desconectarStreamNotificaciones();
         actualizarNavegacion();
         window.location.href = '/?logout';
     } catch (error) {
@@ -352,7 +357,7 @@ async function cambiarContrasena(evento) {
             headers['Authorization'] = `Bearer ${token}`;
         }
 
-        const respuesta = await fetch(`${API_BASE_URL}/auth/change-password`, {
+        const respuesta = await fetch(`${API_BASE_URL}/usuarios/change-password`, {
             method: 'POST',
             headers: headers,
             body: JSON.stringify({
@@ -365,6 +370,12 @@ async function cambiarContrasena(evento) {
         const datos = await respuesta.json().catch(() => ({ mensaje: 'Respuesta inválida del servidor.' }));
 
         if (respuesta.ok) {
+            // El token anterior queda revocado: se guarda el nuevo y se reabre el stream de notificaciones con él
+            localStorage.setItem('jwtToken', datos.jwtToken);
+            const ultimoIdRecibido = ultimoIdNotificacionRecibida;
+            desconectarStreamNotificaciones();
+            ultimoIdNotificacionRecibida = ultimoIdRecibido;
+            conectarStreamNotificaciones();
             mostrarMensaje('change-password-message', '¡Contraseña cambiada exitosamente!', false);
             document.getElementById('change-password-form').reset();
         } else {
@@ -378,12 +389,113 @@ async function cambiarContrasena(evento) {
 
 // --- Campañas (para Voluntarios) ---
 
+// Cursores de la siguiente página de cada listado de campañas (null cuando no hay más)
+let cursorCampanas = null;
+let cursorCampanasAdmin = null;
+const TAMANO_PAGINA_CAMPANAS = 20;
+
 async function mostrarCampanas() {
     if (!usuarioActual) { mostrarIniciarSesion(); return; }
     mostrarSeccion('campaigns-section');
     const listaCampanas = document.getElementById('campaigns-list');
     ocultarMensajes('campaigns-message');
     listaCampanas.innerHTML = '<p>Cargando campañas...</p>';
+    document.getElementById('campaigns-search').value = '';
+    cursorCampanas = null;
+    await cargarPaginaCampanas(true);
+}
+
+/**
+ * Pide una página del listado de campañas (paginación por clave).
+ * @param {string|null} cursor - El 'siguienteCursor' de la página anterior, o null para la primera.
+ * @returns {Promise<{respuesta: Response, datos: Object}>}
+ */
+async function obtenerPaginaCampanas(cursor) {
+    const token = localStorage.getItem('jwtToken');
+    const headers = {};
+    if (token) {
+        headers['Authorization'] = `Bearer ${token}`;
+    }
+    const parametros = new URLSearchParams({ tamano: TAMANO_PAGINA_CAMPANAS });
+    if (cursor) {
+        parametros.set('cursor', cursor);
+    }
+    const respuesta = await fetch(`${API_BASE_URL}/campanas/pagina?${parametros}`, { headers });
+    const datos = await respuesta.json().catch(() => ({ mensaje: 'Respuesta inválida del servidor al cargar campañas.' }));
+    return { respuesta, datos };
+}
+
+/**
+ * Carga la siguiente página de campañas disponibles y la añade a la lista.
+ * @param {boolean} primeraPagina - Si es true, reemplaza el contenido actual de la lista.
+ */
+async function cargarPaginaCampanas(primeraPagina = false) {
+    const listaCampanas = document.getElementById('campaigns-list');
+    const botonCargarMas = document.getElementById('campaigns-load-more');
+
+    try {
+        const { respuesta, datos } = await obtenerPaginaCampanas(cursorCampanas);
+
+        if (respuesta.ok) {
+            if (primeraPagina) {
+                listaCampanas.innerHTML = '';
+                if (datos.elementos.length === 0) {
+                    listaCampanas.innerHTML = '<p>No hay campañas disponibles en este momento.</p>';
+                }
+            }
+            await anadirTarjetasCampanas(listaCampanas, datos.elementos);
+            cursorCampanas = datos.siguienteCursor;
+            botonCargarMas.style.display = cursorCampanas ? 'block' : 'none';
+        } else {
+            mostrarMensaje('campaigns-message', datos.mensaje || 'Error al cargar campañas.', true);
+        }
+    } catch (error) {
+        mostrarMensaje('campaigns-message', `Error de red: ${error.message}`, true);
+        console.error("Error al cargar campañas:", error);
+    }
+}
+
+/**
+ * Añade a la lista las tarjetas de las campañas y marca aquellas en las que está inscrito el voluntario actual.
+ * @param {HTMLElement} lista - Contenedor de las tarjetas.
+ * @param {Array<Object>} campanas - Campañas en el formato del listado (CampañaResumenDTO).
+ */
+async function anadirTarjetasCampanas(lista, campanas) {
+    campanas.forEach(campana => {
+        const divCampana = document.createElement('div');
+        divCampana.className = 'card';
+        divCampana.dataset.idCampana = campana.id;
+        divCampana.innerHTML = `
+            <h3>${campana.nombre}</h3>
+            <p>${campana.descripcionCorta ? campana.descripcionCorta + '...' : 'Sin descripción'}</p>
+            <p><strong>Ubicación:</strong> ${campana.ubicacion}</p>
+            <p><strong>Fecha:</strong> ${campana.fechaInicio} al ${campana.fechaFin}</p>
+            <p><strong>Estado:</strong> ${campana.estado}</p>
+            ${campana.distanciaKm != null ? `<p><strong>Distancia:</strong> ${campana.distanciaKm.toFixed(1)} km</p>` : ''}
+            <p class="campaign-enrolled" style="display: none;"><strong>✔ Inscrito</strong></p>
+            <button onclick="mostrarDetallesCampana('${campana.id}', false)">Ver Detalles</button>
+        `;
+        lista.appendChild(divCampana);
+    });
+    if (usuarioActual.rol === 'VOLUNTARIO') {
+        await marcarCampanasInscritas(lista, campanas.map(campana => campana.id));
+    }
+}
+
+/**
+ * Búsqueda de texto completo de campañas. Con el campo vacío vuelve al listado paginado.
+ */
+async function buscarCampanas(evento) {
+    evento.preventDefault();
+    const texto = document.getElementById('campaigns-search').value.trim();
+    if (!texto) {
+        await mostrarCampanas();
+        return;
+    }
+    const listaCampanas = document.getElementById('campaigns-list');
+    ocultarMensajes('campaigns-message');
+    listaCampanas.innerHTML = '<p>Buscando campañas...</p>';
+    document.getElementById('campaigns-load-more').style.display = 'none';
 
     try {
         const token = localStorage.getItem('jwtToken');
@@ -391,35 +503,135 @@ async function mostrarCampanas() {
         if (token) {
             headers['Authorization'] = `Bearer ${token}`;
         }
+        const parametros = new URLSearchParams({ q: texto, tamano: TAMANO_PAGINA_CAMPANAS });
+        const respuesta = await fetch(`${API_BASE_URL}/campanas/buscar?${parametros}`, { headers });
+        const campanas = await respuesta.json().catch(() => null);
 
-        const respuesta = await fetch(`${API_BASE_URL}/campanas`, { headers });
-        const datos = await respuesta.json().catch(() => ({ mensaje: 'Respuesta inválida del servidor al cargar campañas.' }));
+        if (respuesta.ok && campanas) {
+            listaCampanas.innerHTML = campanas.length === 0 ? '<p>Ninguna campaña coincide con la búsqueda.</p>' : '';
+            await anadirTarjetasCampanas(listaCampanas, campanas);
+        } else {
+            mostrarMensaje('campaigns-message', 'Error al buscar campañas.', true);
+        }
+    } catch (error) {
+        mostrarMensaje('campaigns-message', `Error de red: ${error.message}`, true);
+        console.error("Error al buscar campañas:", error);
+    }
+}
 
-        if (respuesta.ok) {
-            if (datos.length === 0) {
-                listaCampanas.innerHTML = '<p>No hay campañas disponibles en este momento.</p>';
+const RADIO_CERCANAS_KM = 25;
+
+/**
+ * Muestra las campañas activas más cercanas a la posición del navegador, de la más cercana a la más lejana.
+ */
+function buscarCampanasCercanas() {
+    if (!navigator.geolocation) {
+        mostrarMensaje('campaigns-message', 'El navegador no permite obtener la ubicación.', true);
+        return;
+    }
+    const listaCampanas = document.getElementById('campaigns-list');
+    ocultarMensajes('campaigns-message');
+    listaCampanas.innerHTML = '<p>Obteniendo tu ubicación...</p>';
+    document.getElementById('campaigns-load-more').style.display = 'none';
+
+    navigator.geolocation.getCurrentPosition(async posicion => {
+        try {
+            const token = localStorage.getItem('jwtToken');
+            const headers = {};
+            if (token) {
+                headers['Authorization'] = `Bearer ${token}`;
+            }
+            const parametros = new URLSearchParams({
+                lat: posicion.coords.latitude,
+                lon: posicion.coords.longitude,
+                radioKm: RADIO_CERCANAS_KM,
+                tamano: TAMANO_PAGINA_CAMPANAS
+            });
+            const respuesta = await fetch(`${API_BASE_URL}/campanas/cercanas?${parametros}`, { headers });
+            const cercanas = await respuesta.json().catch(() => null);
+
+            if (respuesta.ok && cercanas) {
+                listaCampanas.innerHTML = cercanas.length === 0
+                    ? `<p>No hay campañas activas a menos de ${RADIO_CERCANAS_KM} km.</p>` : '';
+                await anadirTarjetasCampanas(listaCampanas,
+                    cercanas.map(cercana => ({ ...cercana.campana, distanciaKm: cercana.distanciaKm })));
             } else {
-                listaCampanas.innerHTML = '';
-                datos.forEach(campana => {
-                    const divCampana = document.createElement('div');
-                    divCampana.className = 'card';
-                    divCampana.innerHTML = `
-                        <h3>${campana.nombre}</h3>
-                        <p>${campana.descripcion ? campana.descripcion.substring(0, 100) + '...' : 'Sin descripción'}</p>
-                        <p><strong>Ubicación:</strong> ${campana.ubicacion}</p>
-                        <p><strong>Fecha:</strong> ${campana.fechaInicio} al ${campana.fechaFin}</p>
-                        <p><strong>Estado:</strong> ${campana.estado}</p>
-                        <button onclick="mostrarDetallesCampana('${campana.id}', false)">Ver Detalles</button>
-                    `;
-                    listaCampanas.appendChild(divCampana);
-                });
+                mostrarMensaje('campaigns-message', 'Error al buscar campañas cercanas.', true);
             }
-        } else {
-            mostrarMensaje('campaigns-message', datos.mensaje || 'Error al cargar campañas.', true);
+        } catch (error) {
+            mostrarMensaje('campaigns-message', `Error de red: ${error.message}`, true);
+            console.error("Error al buscar campañas cercanas:", error);
         }
+    }, () => {
+        listaCampanas.innerHTML = '';
+        mostrarMensaje('campaigns-message', 'No se pudo obtener tu ubicación.', true);
+    });
+}
+
+// Espera entre pulsaciones antes de pedir sugerencias, para no lanzar una petición por tecla
+let temporizadorSugerencias = null;
+const RETARDO_SUGERENCIAS_MS = 200;
+
+/**
+ * Rellena las sugerencias del buscador de campañas con los nombres que empiezan por lo escrito.
+ */
+function sugerirCampanas() {
+    clearTimeout(temporizadorSugerencias);
+    const texto = document.getElementById('campaigns-search').value.trim();
+    const sugerencias = document.getElementById('campaigns-suggestions');
+    if (texto.length < 2) {
+        sugerencias.innerHTML = '';
+        return;
+    }
+    temporizadorSugerencias = setTimeout(async () => {
+        try {
+            const token = localStorage.getItem('jwtToken');
+            const headers = {};
+            if (token) {
+                headers['Authorization'] = `Bearer ${token}`;
+            }
+            const parametros = new URLSearchParams({ q: texto, tamano: 8 });
+            const respuesta = await fetch(`${API_BASE_URL}/campanas/sugerencias?${parametros}`, { headers });
+            if (!respuesta.ok) return;
+            sugerencias.innerHTML = '';
+            (await respuesta.json()).forEach(sugerencia => {
+                const opcion = document.createElement('option');
+                opcion.value = sugerencia.nombre;
+                sugerencias.appendChild(opcion);
+            });
+        } catch (error) {
+            console.error("Error al obtener sugerencias:", error);
+        }
+    }, RETARDO_SUGERENCIAS_MS);
+}
+
+/**
+ * Marca las tarjetas de las campañas en las que está inscrito el usuario actual (una sola petición por página).
+ * @param {HTMLElement} lista - Contenedor de las tarjetas.
+ * @param {Array<number>} idsCampanas - IDs de las campañas recién añadidas.
+ */
+async function marcarCampanasInscritas(lista, idsCampanas) {
+    if (idsCampanas.length === 0) return;
+    try {
+        const token = localStorage.getItem('jwtToken');
+        const headers = {};
+        if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+        }
+        const parametros = new URLSearchParams({ ids: idsCampanas.join(',') });
+        const respuesta = await fetch(`${API_BASE_URL}/campanas/inscripciones?${parametros}`, { headers });
+        if (!respuesta.ok) {
+            console.warn('No se pudo obtener el estado de inscripción:', respuesta.status);
+            return;
+        }
+        const inscripciones = await respuesta.json();
+        lista.querySelectorAll('.card[data-id-campana]').forEach(divCampana => {
+            if (inscripciones[divCampana.dataset.idCampana]) {
+                divCampana.querySelector('.campaign-enrolled').style.display = 'block';
+            }
+        });
     } catch (error) {
-        mostrarMensaje('campaigns-message', `Error de red: ${error.message}`, true);
-        console.error("Error al cargar campañas:", error);
+        console.error("Error al obtener el estado de inscripción:", error);
     }
 }
 
@@ -432,6 +644,7 @@ async function mostrarDetallesCampana(idCampana, esContextoAdmin) {
     const fechaInicio = document.getElementById('modal-campaign-fechaInicio');
     const fechaFin = document.getElementById('modal-campaign-fechaFin');
     const estado = document.getElementById('modal-campaign-estado');
+    const plazas = document.getElementById('modal-campaign-plazas');
     const divEvidencias = document.getElementById('modal-campaign-evidences');
     const botonAccion = document.getElementById('modal-campaign-action-button');
     ocultarMensajes('modal-action-message');
@@ -442,6 +655,7 @@ async function mostrarDetallesCampana(idCampana, esContextoAdmin) {
     fechaInicio.textContent = '';
     fechaFin.textContent = '';
     estado.textContent = '';
+    plazas.textContent = '';
     divEvidencias.innerHTML = '';
     botonAccion.style.display = 'none';
 
@@ -464,6 +678,10 @@ async function mostrarDetallesCampana(idCampana, esContextoAdmin) {
             fechaInicio.textContent = campana.fechaInicio;
             fechaFin.textContent = campana.fechaFin;
             estado.textContent = campana.estado;
+            const inscritos = campana.inscritos ?? 0;
+            plazas.textContent = campana.cupoMaximo
+                ? `${inscritos} de ${campana.cupoMaximo} ocupadas`
+                : `${inscritos} inscritos (sin límite)`;
 
             divEvidencias.innerHTML = '<p>No hay evidencias para esta campaña.</p>';
 
@@ -526,6 +744,8 @@ async function inscribirseCampana(idCampana) {
             if (document.getElementById('campaigns-section').style.display === 'block') {
                 mostrarCampanas();
             }
+        } else if (respuesta.status === 409) {
+            mostrarMensaje('modal-action-message', 'La campaña no tiene plazas libres.', true);
         } else {
             mostrarMensaje('modal-action-message', datos.mensaje || 'Error al inscribirse.', true);
         }
@@ -582,37 +802,46 @@ async function mostrarGestionCampanasAdmin() {
     const listaCampanas = document.getElementById('admin-campaigns-list');
     ocultarMensajes('admin-campaigns-message');
     listaCampanas.innerHTML = '<p>Cargando campañas para administración...</p>';
+    cursorCampanasAdmin = null;
+    await cargarPaginaCampanasAdmin(true);
+}
 
-    try {
-        const token = localStorage.getItem('jwtToken');
-        const headers = {};
-        if (token) {
-            headers['Authorization'] = `Bearer ${token}`;
-        }
+/**
+ * Carga la siguiente página de campañas del listado de administración y la añade a la lista.
+ * @param {boolean} primeraPagina - Si es true, reemplaza el contenido actual de la lista.
+ */
+async function cargarPaginaCampanasAdmin(primeraPagina = false) {
+    const listaCampanas = document.getElementById('admin-campaigns-list');
+    const botonCargarMas = document.getElementById('admin-campaigns-load-more');
 
-        const respuesta = await fetch(`${API_BASE_URL}/campanas`, { headers });
-        const datos = await respuesta.json().catch(() => ({ mensaje: 'Respuesta inválida del servidor al cargar campañas para admin.' }));
+    try {
+        const { respuesta, datos } = await obtenerPaginaCampanas(cursorCampanasAdmin);
 
         if (respuesta.ok) {
-            if (datos.length === 0) {
-                listaCampanas.innerHTML = '<p>No hay campañas para gestionar.</p>';
-            } else {
+            if (primeraPagina) {
                 listaCampanas.innerHTML = '';
-                datos.forEach(campana => {
-                    const divCampana = document.createElement('div');
-                    divCampana.className = 'card';
-                    divCampana.innerHTML = `
-                        <h3>${campana.nombre}</h3>
-                        <p>${campana.descripcion ? campana.descripcion.substring(0, 100) + '...' : 'Sin descripción'}</p>
-                        <p><strong>Ubicación:</strong> ${campana.ubicacion}</p>
-                        <p><strong>Fecha:</strong> ${campana.fechaInicio} al ${campana.fechaFin}</p>
-                        <p><strong>Estado:</strong> ${campana.estado}</p>
-                        <button onclick="editarCampana('${campana.id}')">Editar</button>
-                        <button onclick="eliminarCampana('${campana.id}')" class="delete-button">Eliminar</button>
-                    `;
-                    listaCampanas.appendChild(divCampana);
-                });
+                if (datos.elementos.length === 0) {
+                    listaCampanas.innerHTML = '<p>No hay campañas para gestionar.</p>';
+                }
             }
+            datos.elementos.forEach(campana => {
+                const divCampana = document.createElement('div');
+                divCampana.className = 'card';
+                divCampana.innerHTML = `
+                    <h3>${campana.nombre}</h3>
+                    <p>${campana.descripcionCorta ? campana.descripcionCorta + '...' : 'Sin descripción'}</p>
+                    <p><strong>Ubicación:</strong> ${campana.ubicacion}</p>
+                    <p><strong>Fecha:</strong> ${campana.fechaInicio} al ${campana.fechaFin}</p>
+                    <p><strong>Estado:</strong> ${campana.estado}</p>
+                    <button onclick="editarCampana('${campana.id}')">Editar</button>
+                    <button onclick="eliminarCampana('${campana.id}')" class="delete-button">Eliminar</button>
+                    <button onclick="seleccionarCsvInscritos('${campana.id}')">Importar inscritos (CSV)</button>
+                    <button onclick="exportarInscritos('${campana.id}')">Exportar inscritos (CSV)</button>
+                `;
+                listaCampanas.appendChild(divCampana);
+            });
+            cursorCampanasAdmin = datos.siguienteCursor;
+            botonCargarMas.style.display = cursorCampanasAdmin ? 'block' : 'none';
         } else {
             mostrarMensaje('admin-campaigns-message', datos.mensaje || 'Error al cargar campañas para admin.', true);
         }
@@ -687,7 +916,16 @@ async function manejarEnvioCampana(evento) {
         ubicacion: document.getElementById('admin-campaign-ubicacion').value.trim(),
         fechaInicio: formatDateToDDMMYYYY(document.getElementById('admin-campaign-fechaInicio').value),
         fechaFin: formatDateToDDMMYYYY(document.getElementById('admin-campaign-fechaFin').value),
-        estado: document.getElementById('admin-campaign-estado').value
+        estado: document.getElementById('admin-campaign-estado').value,
+        cupoMaximo: document.getElementById('admin-campaign-cupoMaximo').value
+            ? parseInt(document.getElementById('admin-campaign-cupoMaximo').value, 10)
+            : null,
+        latitud: document.getElementById('admin-campaign-latitud').value
+            ? parseFloat(document.getElementById('admin-campaign-latitud').value)
+            : null,
+        longitud: document.getElementById('admin-campaign-longitud').value
+            ? parseFloat(document.getElementById('admin-campaign-longitud').value)
+            : null
     };
 
     ocultarMensajes('campaign-form-message');
@@ -761,6 +999,9 @@ async function editarCampana(idCampana) {
             document.getElementById('admin-campaign-fechaInicio').value = formatDateToYYYYMMDD(campana.fechaInicio);
             document.getElementById('admin-campaign-fechaFin').value = formatDateToYYYYMMDD(campana.fechaFin);
             document.getElementById('admin-campaign-estado').value = campana.estado;
+            document.getElementById('admin-campaign-cupoMaximo').value = campana.cupoMaximo ?? '';
+            document.getElementById('admin-campaign-latitud').value = campana.latitud ?? '';
+            document.getElementById('admin-campaign-longitud').value = campana.longitud ?? '';
         } else {
             mostrarMensaje('campaign-form-message', campana.mensaje || 'Error al cargar la campaña para edición.', true);
             cerrarModal('campaign-form-modal');
@@ -810,15 +1051,118 @@ async function eliminarCampana(idCampana) {
     }
 }
 
+/**
+ * Abre el selector de fichero para importar inscritos en una campaña.
+ * El CSV lleva un nombre de usuario o email de voluntario por línea.
+ */
+function seleccionarCsvInscritos(idCampana) {
+    const selector = document.createElement('input');
+    selector.type = 'file';
+    selector.accept = '.csv,text/csv,text/plain';
+    selector.onchange = () => {
+        if (selector.files.length > 0) {
+            importarInscritos(idCampana, selector.files[0]);
+        }
+    };
+    selector.click();
+}
+
+async function importarInscritos(idCampana, fichero) {
+    mostrarMensaje('admin-campaigns-message', 'Importando inscritos...');
+    try {
+        const token = localStorage.getItem('jwtToken');
+        const headers = { 'Content-Type': 'text/csv' };
+        if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+        }
+        // El fichero se envía tal cual; el servidor lo procesa por lotes a medida que llega
+        const respuesta = await fetch(`${API_BASE_URL}/campanas/${idCampana}/inscripciones/importar`, {
+            method: 'POST',
+            headers: headers,
+            body: fichero
+        });
+        const resultado = await respuesta.json().catch(() => null);
+
+        if (respuesta.ok && resultado) {
+            let texto = `Inscritos: ${resultado.inscritos}. Ya inscritos: ${resultado.yaInscritos}. ` +
+                `Sin plaza: ${resultado.sinPlaza}. No encontrados: ${resultado.noEncontrados}.`;
+            if (resultado.identificadoresNoEncontrados.length > 0) {
+                texto += ` (${resultado.identificadoresNoEncontrados.join(', ')}${resultado.noEncontrados > resultado.identificadoresNoEncontrados.length ? ', ...' : ''})`;
+            }
+            mostrarMensaje('admin-campaigns-message', texto, false);
+        } else {
+            mostrarMensaje('admin-campaigns-message', 'Error al importar los inscritos.', true);
+        }
+    } catch (error) {
+        mostrarMensaje('admin-campaigns-message', `Error de red: ${error.message}`, true);
+        console.error("Error al importar inscritos:", error);
+    }
+}
+
+function exportarInscritos(idCampana) {
+    return descargarExportacion(`/campanas/${idCampana}/inscripciones/exportar`, `inscritos-campana-${idCampana}.csv`,
+        'admin-campaigns-message', 'Error al exportar los inscritos.');
+}
+
+function exportarCampanas() {
+    return descargarExportacion('/campanas/exportar?formato=csv', 'campanas.csv',
+        'admin-campaigns-message', 'Error al exportar las campañas.');
+}
+
+function exportarUsuarios() {
+    return descargarExportacion('/usuarios/exportar?formato=csv', 'usuarios.csv',
+        'volunteers-message', 'Error al exportar los usuarios.');
+}
+
+async function descargarExportacion(ruta, nombreFichero, idMensaje, mensajeError) {
+    try {
+        const token = localStorage.getItem('jwtToken');
+        const headers = {};
+        if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+        }
+        const respuesta = await fetch(`${API_BASE_URL}${ruta}`, { headers });
+        if (!respuesta.ok) {
+            mostrarMensaje(idMensaje, mensajeError, true);
+            return;
+        }
+        // La petición lleva el token en la cabecera, así que la descarga se hace desde un Blob
+        const url = URL.createObjectURL(await respuesta.blob());
+        const enlace = document.createElement('a');
+        enlace.href = url;
+        enlace.download = nombreFichero;
+        enlace.click();
+        URL.revokeObjectURL(url);
+    } catch (error) {
+        mostrarMensaje(idMensaje, `Error de red: ${error.message}`, true);
+        console.error("Error al exportar:", error);
+    }
+}
+
 
 // --- Gestión de Voluntarios (para Administradores) ---
 
+// Cursor de la siguiente página del listado de voluntarios (null cuando no hay más)
+let cursorVoluntarios = null;
+const TAMANO_PAGINA_VOLUNTARIOS = 20;
+
 async function mostrarVoluntarios() {
     if (!usuarioActual || usuarioActual.rol !== 'ADMIN') { mostrarIniciarSesion(); return; }
     mostrarSeccion('admin-volunteers-section');
     const listaVoluntarios = document.getElementById('volunteers-list');
     ocultarMensajes('volunteers-message');
     listaVoluntarios.innerHTML = '<p>Cargando voluntarios...</p>';
+    cursorVoluntarios = null;
+    await cargarPaginaVoluntarios(true);
+}
+
+/**
+ * Carga la siguiente página de voluntarios con los filtros del formulario y la añade a la lista.
+ * @param {boolean} primeraPagina - Si es true, reemplaza el contenido actual de la lista.
+ */
+async function cargarPaginaVoluntarios(primeraPagina = false) {
+    const listaVoluntarios = document.getElementById('volunteers-list');
+    const botonCargarMas = document.getElementById('volunteers-load-more');
 
     try {
         const token = localStorage.getItem('jwtToken');
@@ -827,30 +1171,54 @@ async function mostrarVoluntarios() {
             headers['Authorization'] = `Bearer ${token}`;
         }
 
-        const respuesta = await fetch(`${API_BASE_URL}/usuarios?rol=VOLUNTARIO`, { headers });
+        const parametros = new URLSearchParams({
+            rol: 'VOLUNTARIO',
+            orden: document.getElementById('volunteers-order').value,
+            tamano: TAMANO_PAGINA_VOLUNTARIOS
+        });
+        const busqueda = document.getElementById('volunteers-search').value.trim();
+        if (busqueda) {
+            parametros.set('busqueda', busqueda);
+            const campo = document.getElementById('volunteers-search-field').value;
+            if (campo) {
+                parametros.set('campo', campo);
+            }
+        }
+        const activo = document.getElementById('volunteers-active').value;
+        if (activo) {
+            parametros.set('activo', activo);
+        }
+        if (cursorVoluntarios) {
+            parametros.set('cursor', cursorVoluntarios);
+        }
+
+        const respuesta = await fetch(`${API_BASE_URL}/usuarios/pagina?${parametros}`, { headers });
         const datos = await respuesta.json().catch(() => ({ mensaje: 'Respuesta inválida del servidor al cargar voluntarios.' }));
 
         if (respuesta.ok) {
-            if (datos.length === 0) {
-                listaVoluntarios.innerHTML = '<p>No hay voluntarios registrados.</p>';
-            } else {
+            if (primeraPagina) {
                 listaVoluntarios.innerHTML = '';
-                datos.forEach(voluntario => {
-                    const divVoluntario = document.createElement('div');
-                    divVoluntario.className = 'card';
-                    divVoluntario.innerHTML = `
-                        <h3>${voluntario.nombre} ${voluntario.apellido} (${voluntario.nombreUsuario})</h3>
-                        <p>Email: ${voluntario.email}</p>
-                        <p>Teléfono: ${voluntario.telefono || 'N/A'}</p>
-                        <p>Calificación: ${voluntario.calificacion !== undefined ? voluntario.calificacion.toFixed(1) : 'N/A'}</p>
-                        <p>Activo: ${voluntario.activo ? 'Sí' : 'No'}</p>
-                        <button onclick="toggleEstadoVoluntario('${voluntario.id}', ${voluntario.activo})">
-                            ${voluntario.activo ? 'Desactivar' : 'Activar'}
-                        </button>
-                    `;
-                    listaVoluntarios.appendChild(divVoluntario);
-                });
+                if (datos.elementos.length === 0) {
+                    listaVoluntarios.innerHTML = '<p>No hay voluntarios que coincidan.</p>';
+                }
             }
+            datos.elementos.forEach(voluntario => {
+                const divVoluntario = document.createElement('div');
+                divVoluntario.className = 'card';
+                divVoluntario.innerHTML = `
+                    <h3>${voluntario.nombre} ${voluntario.apellido} (${voluntario.nombreUsuario})</h3>
+                    <p>Email: ${voluntario.email}</p>
+                    <p>Teléfono: ${voluntario.telefono || 'N/A'}</p>
+                    <p>Calificación: ${voluntario.calificacion !== undefined ? voluntario.calificacion.toFixed(1) : 'N/A'}</p>
+                    <p>Activo: ${voluntario.activo ? 'Sí' : 'No'}</p>
+                    <button onclick="toggleEstadoVoluntario('${voluntario.id}', ${voluntario.activo})">
+                        ${voluntario.activo ? 'Desactivar' : 'Activar'}
+                    </button>
+                `;
+                listaVoluntarios.appendChild(divVoluntario);
+            });
+            cursorVoluntarios = datos.siguienteCursor;
+            botonCargarMas.style.display = cursorVoluntarios ? 'block' : 'none';
         } else {
             mostrarMensaje('volunteers-message', datos.mensaje || 'Error al cargar voluntarios.', true);
         }
@@ -930,7 +1298,7 @@ async function mostrarReportesAdmin() {
             document.getElementById('campanas-activas').textContent = datos.campanasActivas;
             document.getElementById('campanas-planificadas').textContent = datos.campanasPlanificadas;
             document.getElementById('campanas-finalizadas').textContent = datos.campanasFinalizadas;
-            document.getElementById('campanas-canceladas').textContent = datos.campanasCanceladas !== undefined ? datos.campanasCanceladas : 'N/A';
+            document.getElementById('campanas-canceladas').textContent = datos.campanasPorEstado?.CANCELADA ?? 'N/A';
             document.getElementById('total-usuarios').textContent = datos.totalUsuarios;
             document.getElementById('total-voluntarios').textContent = datos.totalVoluntarios;
             reportsContent.style.display = 'block';
@@ -960,6 +1328,36 @@ async function mostrarCalendario() {
         calendar.destroy();
     }
 
+    calendar = new FullCalendar.Calendar(calendarEl, {
+        initialView: 'dayGridMonth',
+        locale: 'es',
+        headerToolbar: {
+            left: 'prev,next today',
+            center: 'title',
+            right: 'dayGridMonth,timeGridWeek,timeGridDay'
+        },
+        // FullCalendar pide los eventos del rango visible cada vez que cambia de vista o de mes
+        events: cargarEventosCalendario,
+        eventClick: function(info) {
+            const event = info.event;
+            let details = `
+                <strong>Campaña:</strong> ${event.title}<br>
+                <strong>Ubicación:</strong> ${event.extendedProps.ubicacion || 'N/A'}<br>
+                <strong>Estado:</strong> ${event.extendedProps.estado || 'N/A'}<br>
+                <strong>Inicio:</strong> ${event.start ? event.start.toLocaleDateString('es-ES') : 'N/A'}<br>
+                <strong>Fin:</strong> ${event.end ? event.end.toLocaleDateString('es-ES') : 'N/A'}
+            `;
+
+            console.log("Detalles del evento:", details);
+        },
+        dateClick: function(info) {
+        }
+    });
+    calendar.render();
+}
+
+// Carga las campañas que se solapan con el rango visible del calendario
+async function cargarEventosCalendario(fetchInfo, successCallback, failureCallback) {
     try {
         const token = localStorage.getItem('jwtToken');
         const headers = {};
@@ -967,7 +1365,11 @@ async function mostrarCalendario() {
             headers['Authorization'] = `Bearer ${token}`;
         }
 
-        const respuesta = await fetch(`${API_BASE_URL}/campanas/eventos`, { headers });
+        const params = new URLSearchParams({
+            from: fetchInfo.startStr.substring(0, 10),
+            to: fetchInfo.endStr.substring(0, 10)
+        });
+        const respuesta = await fetch(`${API_BASE_URL}/campanas/eventos?${params}`, { headers });
         const datos = await respuesta.json().catch(() => {
             console.error("Error al parsear JSON de eventos de calendario.");
             mostrarMensaje('calendar-message', 'Respuesta inválida del servidor al cargar eventos de calendario.', true);
@@ -975,51 +1377,25 @@ async function mostrarCalendario() {
         });
 
         if (respuesta.ok) {
-            const formattedEvents = datos.map(evento => ({
+            successCallback(datos.map(evento => ({
                 id: evento.id,
                 title: evento.nombre,
                 start: formatDateToYYYYMMDD(evento.fechaInicio),
                 end: formatDateToYYYYMMDD(evento.fechaFin),
                 extendedProps: {
-                    descripcion: evento.descripcion,
                     ubicacion: evento.ubicacion,
                     estado: evento.estado
                 },
                 color: getColorForEstado(evento.estado)
-            }));
-
-            calendar = new FullCalendar.Calendar(calendarEl, {
-                initialView: 'dayGridMonth',
-                locale: 'es',
-                headerToolbar: {
-                    left: 'prev,next today',
-                    center: 'title',
-                    right: 'dayGridMonth,timeGridWeek,timeGridDay'
-                },
-                events: formattedEvents,
-                eventClick: function(info) {
-                    const event = info.event;
-                    let details = `
-                        <strong>Campaña:</strong> ${event.title}<br>
-                        <strong>Descripción:</strong> ${event.extendedProps.descripcion || 'N/A'}<br>
-                        <strong>Ubicación:</strong> ${event.extendedProps.ubicacion || 'N/A'}<br>
-                        <strong>Estado:</strong> ${event.extendedProps.estado || 'N/A'}<br>
-                        <strong>Inicio:</strong> ${event.start ? event.start.toLocaleDateString('es-ES') : 'N/A'}<br>
-                        <strong>Fin:</strong> ${event.end ? event.end.toLocaleDateString('es-ES') : 'N/A'}
-                    `;
-
-                    console.log("Detalles del evento:", details);
-                },
-                dateClick: function(info) {
-                }
-            });
-            calendar.render();
+            })));
         } else {
             mostrarMensaje('calendar-message', datos.mensaje || 'Error al cargar eventos del calendario.', true);
+            failureCallback(new Error(`HTTP ${respuesta.status}`));
         }
     } catch (error) {
         mostrarMensaje('calendar-message', `Error de red: ${error.message}`, true);
         console.error("Error al cargar calendario:", error);
+        failureCallback(error);
     }
 }
 
@@ -1040,12 +1416,30 @@ function getColorForEstado(estado) {
 
 // --- Notificaciones ---
 
+// Cursor de la siguiente página de notificaciones (null cuando no hay más)
+let cursorNotificaciones = null;
+// ID de la notificación más reciente mostrada; "Marcar todas" no toca las que lleguen después
+let idNotificacionMasReciente = null;
+const TAMANO_PAGINA_NOTIFICACIONES = 20;
+
 async function mostrarNotificaciones() {
     if (!usuarioActual) { mostrarIniciarSesion(); return; }
     mostrarSeccion('notifications-section');
     const listaNotificaciones = document.getElementById('notifications-list');
     ocultarMensajes('notifications-message');
     listaNotificaciones.innerHTML = '<p>Cargando notificaciones...</p>';
+    cursorNotificaciones = null;
+    await cargarPaginaNotificaciones(true);
+    actualizarContadorNotificaciones();
+}
+
+/**
+ * Carga la siguiente página de notificaciones y la añade a la lista.
+ * @param {boolean} primeraPagina - Si es true, reemplaza el contenido actual de la lista.
+ */
+async function cargarPaginaNotificaciones(primeraPagina = false) {
+    const listaNotificaciones = document.getElementById('notifications-list');
+    const botonCargarMas = document.getElementById('notifications-load-more');
 
     try {
         const token = localStorage.getItem('jwtToken');
@@ -1054,27 +1448,36 @@ async function mostrarNotificaciones() {
             headers['Authorization'] = `Bearer ${token}`;
         }
 
-        const respuesta = await fetch(`${API_BASE_URL}/notificaciones/usuario/${usuarioActual.id}`, { headers });
+        const parametros = new URLSearchParams({ tamano: TAMANO_PAGINA_NOTIFICACIONES });
+        if (cursorNotificaciones) {
+            parametros.set('cursor', cursorNotificaciones);
+        }
+        const respuesta = await fetch(`${API_BASE_URL}/notificaciones/usuario/${usuarioActual.id}/pagina?${parametros}`, { headers });
         const datos = await respuesta.json().catch(() => ({ mensaje: 'Respuesta inválida del servidor al cargar notificaciones.' }));
 
         if (respuesta.ok) {
-            if (datos.length === 0) {
-                listaNotificaciones.innerHTML = '<p>No tienes notificaciones nuevas.</p>';
-            } else {
+            if (primeraPagina) {
                 listaNotificaciones.innerHTML = '';
-                datos.forEach(notificacion => {
-                    const divNotificacion = document.createElement('div');
-                    divNotificacion.className = 'card notification-card';
-                    divNotificacion.innerHTML = `
-                        <h4>${notificacion.titulo}</h4>
-                        <p>${notificacion.mensaje}</p>
-                        <small>Fecha: ${new Date(notificacion.fechaCreacion).toLocaleDateString()} ${new Date(notificacion.fechaCreacion).toLocaleTimeString()}</small>
-                        <p>Leída: ${notificacion.leida ? 'Sí' : 'No'}</p>
-                        ${!notificacion.leida ? `<button onclick="marcarNotificacionLeida('${notificacion.id}')">Marcar como Leída</button>` : ''}
-                    `;
-                    listaNotificaciones.appendChild(divNotificacion);
-                });
+                idNotificacionMasReciente = datos.elementos.length > 0 ? datos.elementos[0].id : null;
+                document.getElementById('notifications-mark-all').style.display = idNotificacionMasReciente ? 'block' : 'none';
+                if (datos.elementos.length === 0) {
+                    listaNotificaciones.innerHTML = '<p>No tienes notificaciones nuevas.</p>';
+                }
             }
+            datos.elementos.forEach(notificacion => {
+                const divNotificacion = document.createElement('div');
+                divNotificacion.className = 'card notification-card';
+                divNotificacion.innerHTML = `
+                    <h4>${notificacion.titulo}</h4>
+                    <p>${notificacion.mensaje}</p>
+                    <small>Fecha: ${new Date(notificacion.fechaCreacion).toLocaleDateString()} ${new Date(notificacion.fechaCreacion).toLocaleTimeString()}</small>
+                    <p>Leída: ${notificacion.leida ? 'Sí' : 'No'}</p>
+                    ${!notificacion.leida ? `<button onclick="marcarNotificacionLeida('${notificacion.id}')">Marcar como Leída</button>` : ''}
+                `;
+                listaNotificaciones.appendChild(divNotificacion);
+            });
+            cursorNotificaciones = datos.siguienteCursor;
+            botonCargarMas.style.display = cursorNotificaciones ? 'block' : 'none';
         } else {
             mostrarMensaje('notifications-message', datos.mensaje || 'Error al cargar notificaciones.', true);
         }
@@ -1084,6 +1487,143 @@ async function mostrarNotificaciones() {
     }
 }
 
+async function marcarTodasNotificacionesLeidas() {
+    if (!usuarioActual || !idNotificacionMasReciente) { return; }
+    ocultarMensajes('notifications-message');
+    try {
+        const token = localStorage.getItem('jwtToken');
+        const headers = {};
+        if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+        }
+
+        const respuesta = await fetch(`${API_BASE_URL}/notificaciones/marcar-todas-leidas?hastaId=${idNotificacionMasReciente}`, {
+            method: 'PUT',
+            headers: headers
+        });
+
+        if (respuesta.ok) {
+            mostrarNotificaciones();
+            mostrarMensaje('notifications-message', 'Notificaciones marcadas como leídas.', false);
+        } else {
+            mostrarMensaje('notifications-message', 'Error al marcar las notificaciones como leídas.', true);
+        }
+    } catch (error) {
+        mostrarMensaje('notifications-message', `Error de red: ${error.message}`, true);
+        console.error("Error al marcar notificaciones como leídas:", error);
+    }
+}
+
+// Conexión Server-Sent Events que recibe las notificaciones nuevas sin necesidad de consultar al servidor
+let streamNotificaciones = null;
+let reconexionStream = null;
+let ultimoIdNotificacionRecibida = null; // Para reanudar sin perder notificaciones al reconectar
+
+const REINTENTO_STREAM_MS = 5000;
+
+/**
+ * Abre (si no está abierto) el stream de notificaciones del usuario autenticado.
+ * EventSource no puede enviar la cabecera Authorization: se pide antes un ticket de un solo uso con el JWT
+ * (que así nunca va en la URL). Como el ticket no sirve para la reconexión automática del navegador, ante
+ * cualquier error se cierra la conexión y se abre otra con un ticket nuevo, desde la última notificación recibida.
+ */
+async function conectarStreamNotificaciones() {
+    const token = localStorage.getItem('jwtToken');
+    if (streamNotificaciones || reconexionStream || !token || typeof EventSource === 'undefined') {
+        return;
+    }
+    streamNotificaciones = 'conectando';
+    let ticket = null;
+    try {
+        const respuesta = await fetch(`${API_BASE_URL}/notificaciones/stream/ticket`, {
+            method: 'POST',
+            headers: { 'Authorization': `Bearer ${token}` }
+        });
+        if (respuesta.ok) {
+            ticket = (await respuesta.json()).ticket;
+        }
+    } catch (error) {
+        console.error("Error al pedir el ticket del stream de notificaciones:", error);
+    }
+    if (streamNotificaciones !== 'conectando') {
+        return; // Se cerró la sesión mientras tanto
+    }
+    if (!ticket) {
+        streamNotificaciones = null;
+        programarReconexionStream();
+        return;
+    }
+
+    let url = `${API_BASE_URL}/notificaciones/stream?ticket=${encodeURIComponent(ticket)}`;
+    if (ultimoIdNotificacionRecibida) {
+        url += `&ultimoId=${encodeURIComponent(ultimoIdNotificacionRecibida)}`;
+    }
+    const stream = new EventSource(url);
+    streamNotificaciones = stream;
+    stream.addEventListener('notificacion', (evento) => {
+        // Al reanudar, el servidor puede repetir alguna notificación anterior: se conserva la mayor recibida
+        ultimoIdNotificacionRecibida = Math.max(ultimoIdNotificacionRecibida || 0, Number(evento.lastEventId));
+        actualizarContadorNotificaciones();
+        // Si la bandeja está abierta, se recarga para mostrar la notificación nueva
+        if (document.getElementById('notifications-section').style.display === 'block') {
+            mostrarNotificaciones();
+        }
+    });
+    stream.onerror = () => {
+        if (streamNotificaciones !== stream) {
+            return;
+        }
+        stream.close();
+        streamNotificaciones = null;
+        programarReconexionStream();
+    };
+}
+
+function programarReconexionStream() {
+    reconexionStream = setTimeout(() => {
+        reconexionStream = null;
+        conectarStreamNotificaciones();
+    }, REINTENTO_STREAM_MS);
+}
+
+function desconectarStreamNotificaciones() {
+    if (reconexionStream) {
+        clearTimeout(reconexionStream);
+        reconexionStream = null;
+    }
+    if (streamNotificaciones instanceof EventSource) {
+        streamNotificaciones.close();
+    }
+    streamNotificaciones = null;
+    ultimoIdNotificacionRecibida = null;
+}
+
+/**
+ * Actualiza el contador de notificaciones no leídas del menú.
+ */
+async function actualizarContadorNotificaciones() {
+    const contador = document.getElementById('notifications-badge');
+    if (!usuarioActual) {
+        contador.textContent = '';
+        return;
+    }
+    try {
+        const token = localStorage.getItem('jwtToken');
+        const headers = {};
+        if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+        }
+
+        const respuesta = await fetch(`${API_BASE_URL}/notificaciones/usuario/${usuarioActual.id}/no-leidas/count`, { headers });
+        if (respuesta.ok) {
+            const noLeidas = await respuesta.json();
+            contador.textContent = noLeidas > 0 ? ` (${noLeidas})` : '';
+        }
+    } catch (error) {
+        console.error("Error al obtener el contador de notificaciones:", error);
+    }
+}
+
 async function marcarNotificacionLeida(idNotificacion) {
     if (!usuarioActual) { mostrarIniciarSesion(); return; }
     ocultarMensajes('notifications-message');
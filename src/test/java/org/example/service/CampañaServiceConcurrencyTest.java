@@ -0,0 +1,112 @@
+package org.example.service;
+
+import org.example.model.Campaña;
+import org.example.model.EstadoCampaña;
+import org.example.model.Usuario;
+import org.example.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inscripciones simultáneas en una campaña con menos plazas que voluntarios: se inscriben exactamente tantos
+ * como plazas tiene, y el contador de inscritos coincide con las filas de campana_voluntarios. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrencia;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "busqueda.indice.directorio=target/indice-campanas-test"
+})
+class CampañaServiceConcurrencyTest {
+
+    private static final int VOLUNTARIOS = 20;
+    private static final int CUPO_MAXIMO = 5;
+
+    @Autowired
+    private CampañaService campañaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void inscripcionesSimultaneasNoSuperanElCupo() throws Exception {
+        Long idCampaña = crearCampaña().getId();
+        List<Long> idsVoluntarios = new ArrayList<>();
+        for (int i = 0; i < VOLUNTARIOS; i++) {
+            idsVoluntarios.add(crearVoluntario(i).getId());
+        }
+
+        ExecutorService hilos = Executors.newFixedThreadPool(VOLUNTARIOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try {
+            for (Long idVoluntario : idsVoluntarios) {
+                resultados.add(hilos.submit(() -> {
+                    salida.await();
+                    try {
+                        return campañaService.inscribirVoluntario(idCampaña, idVoluntario);
+                    } catch (IllegalStateException e) {
+                        return false; // Campaña completa
+                    }
+                }));
+            }
+            salida.countDown();
+
+            int inscritos = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get(30, TimeUnit.SECONDS)) {
+                    inscritos++;
+                }
+            }
+            assertEquals(CUPO_MAXIMO, inscritos);
+        } finally {
+            hilos.shutdownNow();
+            assertTrue(hilos.awaitTermination(30, TimeUnit.SECONDS));
+        }
+
+        assertEquals(CUPO_MAXIMO, jdbcTemplate.queryForObject(
+                "SELECT inscritos FROM campanas WHERE id = ?", Integer.class, idCampaña));
+        assertEquals(CUPO_MAXIMO, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM campana_voluntarios WHERE campana_id = ?", Integer.class, idCampaña));
+    }
+
+    private Campaña crearCampaña() {
+        Campaña campaña = new Campaña();
+        campaña.setNombre("Recogida de alimentos");
+        campaña.setDescripcion("Campaña con cupo limitado");
+        campaña.setUbicacion("Zaragoza");
+        campaña.setFechaInicio(LocalDate.now().plusDays(7));
+        campaña.setFechaFin(LocalDate.now().plusDays(14));
+        campaña.setEstado(EstadoCampaña.PLANIFICADA);
+        campaña.setCupoMaximo(CUPO_MAXIMO);
+        Long idAdmin = usuarioRepository.findByNombreUsuario("admin").orElseThrow().getId();
+        return campañaService.createCampaña(campaña, idAdmin);
+    }
+
+    private Usuario crearVoluntario(int numero) {
+        Usuario voluntario = new Usuario();
+        voluntario.setNombreUsuario("concurrencia" + numero);
+        voluntario.setContrasena("sin-uso");
+        voluntario.setNombre("Voluntario");
+        voluntario.setApellido("Concurrencia " + numero);
+        voluntario.setEmail("concurrencia" + numero + "@example.com");
+        voluntario.setRol("VOLUNTARIO");
+        voluntario.setActivo(true);
+        return usuarioRepository.save(voluntario);
+    }
+}